@@ -0,0 +1,67 @@
+package study.datajpa.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.config.CurrentAuditor;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//여러 스레드가 동시에 member를 저장할 때 작성자 id를 호출마다 UUID.randomUUID()로 만드는 방식(call)과
+//트랜잭션마다 한번 ThreadLocalRandom으로 만드는 방식(transaction) 비교
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class AuditingBenchmark {
+    private static final int BATCH = 100;
+
+    @Param({"call", "transaction"})
+    String auditorScope;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private CurrentAuditor currentAuditor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("auditing-" + auditorScope,
+                "datajpa.audit.auditor-scope=" + auditorScope);
+        memberRepository = context.getBean(MemberRepository.class);
+        currentAuditor = context.getBean(CurrentAuditor.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //BATCH개를 한 트랜잭션으로 저장한다. (score x BATCH = 초당 저장 행 수)
+    @Benchmark
+    public int bulkInsert() {
+        List<Member> members = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            members.add(new Member("audit" + i, i));
+        }
+        return memberRepository.bulkInsert(members);
+    }
+
+    //작성자 id 결정만 비교 (트랜잭션 밖이므로 transaction 모드도 호출마다 새로 만든다)
+    @Benchmark
+    public String resolveAuditor() {
+        return currentAuditor.resolve();
+    }
+}
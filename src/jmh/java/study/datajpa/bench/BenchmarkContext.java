@@ -0,0 +1,76 @@
+package study.datajpa.bench;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//벤치마크용 스프링 컨텍스트. 내장 H2(mem)를 사용하고 캐시, sql 로그, 예제 데이터는 끈다.
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String database, String... properties) {
+        List<String> defaults = new ArrayList<>();
+        defaults.add("spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+        defaults.add("spring.jpa.hibernate.ddl-auto=create");
+        defaults.add("spring.jpa.properties.hibernate.cache.use_second_level_cache=false");
+        defaults.add("spring.jpa.properties.hibernate.cache.use_query_cache=false");
+        defaults.add("spring.jpa.properties.hibernate.generate_statistics=false");
+        //MemberSeeder가 준비된 뒤 비동기로 넣는 예제 member가 seed()와 겹치지 않게 한다.
+        defaults.add("member.seed.enabled=false");
+        defaults.add("logging.level.root=warn");
+        defaults.add("logging.level.org.hibernate.SQL=warn");
+        defaults.add("logging.level.org.hibernate.type=warn");
+        for (String property : properties) {
+            defaults.add(property);
+        }
+        return new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties(defaults.toArray(new String[0]))
+                .run();
+    }
+
+    //기존 데이터를 지우고 members명을 teams개 팀에 골고루 나눠서 넣는다.
+    public static void seed(ConfigurableApplicationContext context, int members, int teams) {
+        MemberRepository memberRepository = context.getBean(MemberRepository.class);
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        tx.executeWithoutResult(status -> {
+            memberRepository.deleteAllInBatch();
+            teamRepository.deleteAllInBatch();
+        });
+
+        List<Team> teamList = new ArrayList<>(teams);
+        for (int i = 0; i < teams; i++) {
+            teamList.add(new Team("team" + i));
+        }
+        teamRepository.bulkInsert(teamList);
+
+        List<Member> memberList = new ArrayList<>(members);
+        for (int i = 0; i < members; i++) {
+            memberList.add(new Member("member" + i, i % 100, teamList.get(i % teams)));
+        }
+        memberRepository.bulkInsert(memberList);
+    }
+
+    public static TransactionTemplate readOnlyTransaction(ConfigurableApplicationContext context) {
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        tx.setReadOnly(true);
+        return tx;
+    }
+}
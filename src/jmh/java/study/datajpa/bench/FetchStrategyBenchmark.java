@@ -0,0 +1,100 @@
+package study.datajpa.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//member + team을 가져오는 방법별 처리량/지연시간/할당량 비교 (-prof gc)
+//매 호출마다 새 트랜잭션(=새 영속성 컨텍스트)에서 조회하고 team 이름까지 읽는다.
+//application.yml의 default_batch_fetch_size(100)가 켜져 있으면 지연 로딩도 in 쿼리로 묶여서 N+1이 재현되지 않으므로
+//이 벤치마크에서는 끈다.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FetchStrategyBenchmark {
+
+    @Param({"1000", "10000"})
+    int members;
+
+    @Param({"10", "100"})
+    int teams;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate tx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("fetch", "spring.jpa.properties.hibernate.default_batch_fetch_size=1");
+        BenchmarkContext.seed(context, members, teams);
+        memberRepository = context.getBean(MemberRepository.class);
+        tx = BenchmarkContext.readOnlyTransaction(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //member 조회 1번 + team 프록시 초기화 team 수만큼 (영속성 컨텍스트에 이미 있는 team은 다시 조회하지 않는다)
+    @Benchmark
+    public int lazyNPlusOne() {
+        return tx.execute(status -> touchTeams(memberRepository.findMembers()));
+    }
+
+    //join만 하고 fetch는 하지 않으므로 역시 N+1
+    @Benchmark
+    public int innerJoinWithoutFetch() {
+        return tx.execute(status -> touchTeams(memberRepository.findMembersWithTeam()));
+    }
+
+    @Benchmark
+    public int joinFetch() {
+        return tx.execute(status -> touchTeams(memberRepository.findMemberJoinFetch()));
+    }
+
+    @Benchmark
+    public int entityGraphFindAll() {
+        return tx.execute(status -> touchTeams(memberRepository.findAll()));
+    }
+
+    @Benchmark
+    public int entityGraphQuery() {
+        return tx.execute(status -> touchTeams(memberRepository.findMemberEntityGraph()));
+    }
+
+    @Benchmark
+    public int dtoProjection() {
+        return tx.execute(status -> {
+            List<MemberDto> dtos = memberRepository.findMemberDto();
+            int sum = 0;
+            for (MemberDto dto : dtos) {
+                sum += dto.getTeamName().length();
+            }
+            return sum;
+        });
+    }
+
+    private static int touchTeams(List<Member> members) {
+        int sum = 0;
+        for (Member member : members) {
+            sum += member.getTeam().getName().length();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,73 @@
+package study.datajpa.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//findByNames: in 절 하나로 전부 넘기는 방식 vs chunk로 나눠서 병렬 조회
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FindByNamesBenchmark {
+    private static final int MEMBERS = 100_000;
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    int names;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private EntityManagerFactory entityManagerFactory;
+    private List<String> usernames;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("names");
+        BenchmarkContext.seed(context, MEMBERS, 100);
+        memberRepository = context.getBean(MemberRepository.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+
+        usernames = new ArrayList<>(names);
+        int step = MEMBERS / names;
+        for (int i = 0; i < names; i++) {
+            usernames.add("member" + (i * step));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> singleInClause() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            return em.createQuery("select m from Member m where m.username in :names", Member.class)
+                    .setParameter("names", usernames)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public List<Member> chunked() {
+        return memberRepository.findByNames(usernames);
+    }
+}
@@ -0,0 +1,72 @@
+package study.datajpa.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.concurrent.TimeUnit;
+
+///members 한 페이지를 만드는 비용. 엔티티 조회 후 dto 변환 vs dto 직접 조회
+//./gradlew jmh 의 -prof gc 결과(gc.alloc.rate.norm)로 페이지당 할당량을 비교한다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberListingBenchmark {
+
+    @Param({"20", "100"})
+    int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private TransactionTemplate readWriteTx;
+    private TransactionTemplate readOnlyTx;
+    private PageRequest pageRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("listing");
+        BenchmarkContext.seed(context, 10_000, 100);
+        memberRepository = context.getBean(MemberRepository.class);
+        readWriteTx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTx = BenchmarkContext.readOnlyTransaction(context);
+        pageRequest = PageRequest.of(10, pageSize, Sort.by("username"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //기존 방식: 관리 엔티티 + 스냅샷, team은 지연 로딩
+    @Benchmark
+    public Page<MemberDto> entityPageReadWrite() {
+        return readWriteTx.execute(status -> memberRepository.findAll(pageRequest)
+                .map(m -> new MemberDto(m.getId(), m.getUsername(), m.getTeam().getName())));
+    }
+
+    @Benchmark
+    public Page<MemberDto> entityPageReadOnly() {
+        return readOnlyTx.execute(status -> memberRepository.findAll(pageRequest)
+                .map(m -> new MemberDto(m.getId(), m.getUsername(), m.getTeam().getName())));
+    }
+
+    @Benchmark
+    public Page<MemberDto> dtoProjectionPage() {
+        return memberRepository.findMemberDtoPage(pageRequest);
+    }
+}
@@ -0,0 +1,77 @@
+package study.datajpa.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.MemberSearchRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//username 검색: like 쿼리(StartingWith/Containing)와 메모리 인덱스(MemberSearchRepository) 비교
+//인덱스 쪽도 찾은 id로 member를 조회하는 쿼리 한번은 포함된다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UsernameSearchBenchmark {
+    private static final int LIMIT = 10;
+
+    @Param({"10000", "100000"})
+    int members;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private MemberSearchRepository memberSearchRepository;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        context = BenchmarkContext.start("username-search-" + members);
+        BenchmarkContext.seed(context, members, 100);
+        memberRepository = context.getBean(MemberRepository.class);
+        memberSearchRepository = context.getBean(MemberSearchRepository.class);
+        readOnly = BenchmarkContext.readOnlyTransaction(context);
+        //seed의 bulk delete가 띄운 재구성이 끝날 때까지 기다린다.
+        while (memberSearchRepository.size() != members) {
+            memberSearchRepository.rebuild();
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Member> prefixLike() {
+        return readOnly.execute(status -> memberRepository.findTop10ByUsernameStartingWithOrderByUsernameAsc("member123"));
+    }
+
+    @Benchmark
+    public List<Member> prefixIndex() {
+        return readOnly.execute(status -> memberSearchRepository.searchByPrefix("member123", LIMIT));
+    }
+
+    //"er99"는 모든 username에 들어있는 "mem" 같은 흔한 조각 없이 결과가 적은 경우
+    @Benchmark
+    public List<Member> substringLike() {
+        return readOnly.execute(status -> memberRepository.findTop10ByUsernameContainingOrderByUsernameAsc("er99"));
+    }
+
+    @Benchmark
+    public List<Member> substringIndex() {
+        return readOnly.execute(status -> memberSearchRepository.searchBySubstring("er99", LIMIT));
+    }
+}
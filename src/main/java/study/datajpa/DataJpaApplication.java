@@ -2,25 +2,25 @@ package study.datajpa;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
-import org.springframework.data.domain.AuditorAware;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-import java.util.Optional;
-import java.util.UUID;
-
+//Item의 @CreatedDate용. BaseEntity는 BaseEntityAuditListener가 채우고 작성자는 CurrentAuditor 빈을 쓴다.
 @EnableJpaAuditing
+@EnableAsync
+@EnableScheduling
 @SpringBootApplication
 public class DataJpaApplication {
+    //시작할 때 기록하는 단계 수. bean 생성마다 하나씩 생기므로 넉넉하게 둔다.
+    private static final int STARTUP_STEP_CAPACITY = 10_000;
 
     public static void main(String[] args) {
-        SpringApplication.run(DataJpaApplication.class, args);
-
-    }
-
-    @Bean
-    public AuditorAware<String> auditorProvider() {
-        return () -> Optional.of(UUID.randomUUID().toString());
+        SpringApplication application = new SpringApplication(DataJpaApplication.class);
+        //시작 단계별 시간을 기록한다. (StartupTimings, /metrics/startup)
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEP_CAPACITY));
+        application.run(args);
     }
 
 }
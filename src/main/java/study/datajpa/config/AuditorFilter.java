@@ -0,0 +1,34 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.Principal;
+
+//요청 하나 동안 사용할 작성자를 정한다. 인증된 사용자(principal)가 있으면 그 이름을, 없으면 새 id를 쓴다.
+//클라이언트가 보낸 헤더 값은 누구나 꾸밀 수 있으므로 작성자로 쓰지 않는다.
+@Component
+@RequiredArgsConstructor
+public class AuditorFilter extends OncePerRequestFilter {
+    private final CurrentAuditor currentAuditor;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Principal principal = request.getUserPrincipal();
+        String name = principal != null ? principal.getName() : null;
+        currentAuditor.bindRequest(StringUtils.hasText(name) ? name : CurrentAuditor.newAuditorId());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            currentAuditor.clearRequest();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+//createBy/lastModifiedBy에 들어갈 작성자.
+//http 요청 안에서는 AuditorFilter가 정해준 값(인증된 사용자 이름, 없으면 요청마다 새로 만든 id)을 쓰고,
+//요청 밖에서는 트랜잭션마다 한번만 id를 만들어서 그 트랜잭션의 모든 엔티티에 같은 값을 쓴다.
+//엔티티마다 UUID.randomUUID()를 부르면 공유 SecureRandom에서 스레드들이 경합하므로
+//id는 ThreadLocalRandom으로 만든다. (보안용 값이 아니라 작성자 구분용)
+@Component
+public class CurrentAuditor implements AuditorAware<String> {
+    public enum Scope {
+        //요청/트랜잭션마다 한번 (기본)
+        TRANSACTION,
+        //호출마다 UUID.randomUUID(). 예전 방식, 벤치마크 비교용
+        CALL
+    }
+
+    private static final ThreadLocal<String> REQUEST_AUDITOR = new ThreadLocal<>();
+    private static final Object TRANSACTION_KEY = new Object();
+
+    private final Scope scope;
+
+    public CurrentAuditor(@Value("${datajpa.audit.auditor-scope:transaction}") Scope scope) {
+        this.scope = scope;
+    }
+
+    @Override
+    public Optional<String> getCurrentAuditor() {
+        return Optional.of(resolve());
+    }
+
+    public String resolve() {
+        if (scope == Scope.CALL) {
+            return UUID.randomUUID().toString();
+        }
+        String requestAuditor = REQUEST_AUDITOR.get();
+        if (requestAuditor != null) {
+            return requestAuditor;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return newAuditorId();
+        }
+        String bound = (String) TransactionSynchronizationManager.getResource(TRANSACTION_KEY);
+        if (bound == null) {
+            bound = newAuditorId();
+            TransactionSynchronizationManager.bindResource(TRANSACTION_KEY, bound);
+            TransactionSynchronizationManager.registerSynchronization(new UnbindOnCompletion());
+        }
+        return bound;
+    }
+
+    void bindRequest(String auditor) {
+        REQUEST_AUDITOR.set(auditor);
+    }
+
+    void clearRequest() {
+        REQUEST_AUDITOR.remove();
+    }
+
+    static String newAuditorId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+
+    private static final class UnbindOnCompletion implements TransactionSynchronization {
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_KEY);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+@Configuration
+public class DbExecutorConfig {
+    private static final ThreadLocal<Boolean> RUNNING_DB_TASK = new ThreadLocal<>();
+
+    //현재 스레드가 dbExecutor 작업을 실행 중인지. (큐가 가득 차서 호출한 스레드가 직접 실행하는 경우 포함)
+    //dbExecutor 작업 안에서 다시 dbExecutor에 작업을 넘기고 기다리면, 스레드가 적은 풀에서는
+    //기다리는 작업이 스레드를 모두 차지해서 넘긴 작업이 실행되지 못할 수 있다. 이때는 현재 스레드에서 실행한다.
+    public static boolean isRunningDbTask() {
+        return RUNNING_DB_TASK.get() != null;
+    }
+
+    //DB 조회를 병렬/비동기(@Async("dbExecutor"))로 실행할 때 사용하는 executor.
+    //스레드마다 커넥션을 하나씩 쓰므로 커넥션 풀 크기의 절반까지만 스레드를 만들고,
+    //큐가 가득 차면 호출한 스레드에서 직접 실행해서(backpressure) 작업이 무한히 쌓이지 않게 한다.
+    @Bean
+    public ThreadPoolTaskExecutor dbExecutor(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${datajpa.db-executor.queue-capacity:500}") int queueCapacity,
+            CountingCallerRunsPolicy dbExecutorRejectionPolicy) {
+        int threads = Math.max(1, maximumPoolSize / 2);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("db-");
+        executor.setRejectedExecutionHandler(dbExecutorRejectionPolicy);
+        executor.setTaskDecorator(DbExecutorConfig::markRunningDbTask);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    private static Runnable markRunningDbTask(Runnable task) {
+        return () -> {
+            boolean nested = isRunningDbTask();
+            RUNNING_DB_TASK.set(Boolean.TRUE);
+            try {
+                task.run();
+            } finally {
+                if (!nested) {
+                    RUNNING_DB_TASK.remove();
+                }
+            }
+        };
+    }
+
+    @Bean
+    public CountingCallerRunsPolicy dbExecutorRejectionPolicy() {
+        return new CountingCallerRunsPolicy();
+    }
+
+    //큐가 가득 차서 호출한 스레드가 직접 실행한 횟수를 센다.
+    public static class CountingCallerRunsPolicy extends ThreadPoolExecutor.CallerRunsPolicy {
+        private final LongAdder callerRuns = new LongAdder();
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            callerRuns.increment();
+            super.rejectedExecution(r, executor);
+        }
+
+        public long getCallerRuns() {
+            return callerRuns.sum();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package study.datajpa.config;
+
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@Profile("fast-startup")
+public class FastStartupConfig {
+
+    //bootstrap-mode가 deferred/lazy일 때 스프링 부트는 이 이름의 executor가 있으면
+    //EntityManagerFactory(hibernate 메타모델, 스키마 생성)를 백그라운드에서 만들고 그동안 다른 빈을 만든다.
+    //dbExecutor가 Executor 빈이라 기본 applicationTaskExecutor가 만들어지지 않으므로 직접 등록한다.
+    //@Async는 모두 executor 이름("dbExecutor")을 지정하므로 이 executor를 쓰지 않는다.
+    @Bean(name = "applicationTaskExecutor")
+    public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+        return builder
+                .corePoolSize(1)
+                .maxPoolSize(1)
+                .threadNamePrefix("bootstrap-")
+                .build();
+    }
+}
@@ -0,0 +1,143 @@
+package study.datajpa.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//readOnly 트랜잭션은 replica 중 하나로, 나머지(쓰기, 트랜잭션 밖)는 primary로 보낸다.
+//replica는 돌아가면서(round-robin) 고르고, 커넥션을 얻지 못한 replica는 failureCooldown 동안 건너뛴다.
+//쓸 수 있는 replica가 없으면 primary에서 읽는다.
+//트랜잭션이 시작될 때가 아니라 첫 sql을 실행할 때 readOnly 여부를 봐야 하므로
+//반드시 LazyConnectionDataSourceProxy로 감싸서 사용한다. (RoutingDataSourceConfig)
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+
+    private final List<Replica> replicas;
+    private final Map<String, DataSource> replicaDataSources;
+    private final long failureCooldownNanos;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration failureCooldown) {
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        List<Replica> list = new ArrayList<>();
+        replicas.forEach((name, dataSource) -> list.add(new Replica(name)));
+        this.replicas = Collections.unmodifiableList(list);
+        this.replicaDataSources = new HashMap<>(replicas);
+        this.failureCooldownNanos = failureCooldown.toNanos();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        Replica replica = nextHealthyReplica();
+        return replica == null ? PRIMARY : replica.name;
+    }
+
+    //replica에서 커넥션을 얻지 못하면 그 replica를 잠시 빼고 primary에서 대신 얻는다.
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        try {
+            return getResolvedDataSources().get(key).getConnection();
+        } catch (SQLException e) {
+            if (PRIMARY.equals(key)) {
+                throw e;
+            }
+            markDown((String) key, e);
+            return getResolvedDefaultDataSource().getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Object key = determineCurrentLookupKey();
+        try {
+            return getResolvedDataSources().get(key).getConnection(username, password);
+        } catch (SQLException e) {
+            if (PRIMARY.equals(key)) {
+                throw e;
+            }
+            markDown((String) key, e);
+            return getResolvedDefaultDataSource().getConnection(username, password);
+        }
+    }
+
+    //replica 이름 -> 지금 사용 가능 여부
+    public Map<String, Boolean> replicaHealth() {
+        long now = System.nanoTime();
+        Map<String, Boolean> health = new HashMap<>();
+        for (Replica replica : replicas) {
+            health.put(replica.name, replica.isAvailable(now));
+        }
+        return health;
+    }
+
+    //replica 풀은 스프링 빈이 아니므로 여기서 닫는다. (primary는 빈으로 따로 닫힌다)
+    public void close() throws Exception {
+        for (DataSource dataSource : replicaDataSources.values()) {
+            if (dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) dataSource).close();
+            }
+        }
+    }
+
+    private Replica nextHealthyReplica() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        long now = System.nanoTime();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.isAvailable(now)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private void markDown(String name, SQLException cause) {
+        for (Replica replica : replicas) {
+            if (replica.name.equals(name)) {
+                replica.downUntil = System.nanoTime() + failureCooldownNanos;
+                log.warn("replica {} unavailable, reading from primary for {} ms: {}",
+                        name, Duration.ofNanos(failureCooldownNanos).toMillis(), cause.getMessage());
+                return;
+            }
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        //0이면 정상. 실패하면 다시 시도할 시각(nanoTime)
+        private volatile long downUntil;
+
+        private Replica(String name) {
+            this.name = name;
+        }
+
+        private boolean isAvailable(long now) {
+            long until = downUntil;
+            return until == 0 || now - until >= 0;
+        }
+    }
+}
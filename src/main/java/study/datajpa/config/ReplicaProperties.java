@@ -0,0 +1,31 @@
+package study.datajpa.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+//datajpa.datasource.routing.* : 읽기 전용 트랜잭션을 보낼 replica 목록
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datajpa.datasource.routing")
+public class ReplicaProperties {
+
+    private boolean enabled;
+    //커넥션을 얻지 못한 replica를 건너뛰는 시간
+    private Duration failureCooldown = Duration.ofSeconds(10);
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
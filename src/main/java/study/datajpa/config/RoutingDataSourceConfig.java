@@ -0,0 +1,65 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//datajpa.datasource.routing.enabled=true 이면 DataSource를 primary + replica 라우팅으로 바꾼다.
+//primary는 spring.datasource.*(hikari 포함) 설정을 그대로 사용한다.
+//끄면 스프링 부트 기본 DataSource 하나만 사용한다.
+@Configuration
+@ConditionalOnProperty(prefix = "datajpa.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class RoutingDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(HikariDataSource primaryDataSource,
+                                                                 ReplicaProperties properties) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        int index = 0;
+        for (ReplicaProperties.Replica replica : properties.getReplicas()) {
+            String name = replica.getName() != null ? replica.getName() : "replica" + index;
+            replicas.put(name, replicaDataSource(name, replica));
+            index++;
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas, properties.getFailureCooldown());
+    }
+
+    //JPA와 jdbc가 사용하는 DataSource. 실제 커넥션은 첫 sql을 실행할 때 readOnly 여부를 보고 고른다.
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    private static HikariDataSource replicaDataSource(String name, ReplicaProperties.Replica replica) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(replica.getUrl());
+        dataSource.setUsername(replica.getUsername());
+        dataSource.setPassword(replica.getPassword());
+        dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+        dataSource.setReadOnly(true);
+        //replica가 떠 있지 않아도 애플리케이션은 뜨게 한다. (첫 요청에서 실패하면 primary로 읽는다)
+        dataSource.setInitializationFailTimeout(-1);
+        return dataSource;
+    }
+}
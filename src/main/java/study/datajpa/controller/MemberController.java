@@ -1,22 +1,53 @@
 package study.datajpa.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberImportResult;
+import study.datajpa.dto.MemberOverviewDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberLookupCoalescer;
 import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.MemberSearchRepository;
+import study.datajpa.repository.TeamRepository;
+import study.datajpa.service.BulkAgePlusJob;
+import study.datajpa.service.MemberBulkUpdateService;
+import study.datajpa.service.MemberExportService;
+import study.datajpa.service.MemberImportService;
 
-import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final int MAX_SEARCH_LIMIT = 100;
+
     private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+    private final MemberLookupCoalescer memberLookupCoalescer;
+    private final MemberExportService memberExportService;
+    private final MemberBulkUpdateService memberBulkUpdateService;
+    private final MemberSearchRepository memberSearchRepository;
+    private final MemberImportService memberImportService;
 
     @GetMapping("/members/{id}")
     public String findMember(@PathVariable("id") Long id) {
@@ -35,16 +66,142 @@ public class MemberController {
 //    spring data jpa가 pageable이라는 인터페이스가 있으면 자동으로 pageRequest를 생성해서
 //    파라미터를 바인딩 해준다.
 
+    //mode로 페이징 방식을 고른다.
+//    page(기본): 매번 count 쿼리를 실행하는 Page
+//    cached-count: count를 member.paging.count-staleness 동안 재사용하는 Page
+//    slice: count 없이 다음 페이지 여부만 알려주는 Slice
     @GetMapping("/members")
-    public Page<MemberDto> list(@PageableDefault(size = 5) Pageable pageable) {
-        return memberRepository.findAll(pageable)
+    public Slice<MemberDto> list(@PageableDefault(size = 5) Pageable pageable,
+                                 @RequestParam(value = "mode", defaultValue = "page") String mode) {
+        //엔티티를 거치지 않고 dto로 바로 조회한다. (읽기 전용, team 이름 포함)
+        switch (mode) {
+            case "page":
+                return memberRepository.findMemberDtoPage(pageable);
+            case "cached-count":
+                return memberRepository.findMemberDtoPageWithCachedCount(pageable);
+            case "slice":
+                return memberRepository.findMemberDtoSlice(pageable);
+            default:
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unknown paging mode: " + mode);
+        }
+    }
+
+    //keyset(cursor) 페이징
+//    http://localhost:8080/members?mode=cursor&size=10
+//    응답의 nextCursor를 다음 요청에 cursor=... 로 넘기면 다음 페이지를 받는다.
+//    offset을 쓰지 않으므로 페이지가 깊어져도 조회 비용이 늘어나지 않는다.
+    @GetMapping(value = "/members", params = "mode=cursor")
+    public CursorPage<MemberDto> listByCursor(@RequestParam(value = "cursor", required = false) String cursor,
+                                             @RequestParam(value = "size", defaultValue = "5") int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        return memberRepository.findKeysetPage(decodeCursor(cursor), pageSize)
                 .map(MemberDto::new);
     }
 
-    @PostConstruct
-    public void init() {
-        for (int i = 0; i < 100; i++) {
-            memberRepository.save(new Member("user" + i, i));
+    //로그인처럼 같은 username 조회가 동시에 몰리는 경로. 동시에 들어온 같은 username 조회는 쿼리 한번으로 합쳐진다.
+    @GetMapping("/members/username/{username}")
+    public MemberDto findByUsername(@PathVariable String username) {
+        return memberLookupCoalescer.findOptionalByUsername(username)
+                .map(MemberDto::new)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "unknown username: " + username));
+    }
+
+    //username 검색 (대소문자 구분 없음, username 순서)
+//    http://localhost:8080/members/search?q=mem&mode=prefix&limit=10
+//    mode=substring이면 username 어디에 들어 있어도 찾는다.
+//    like 대신 메모리 인덱스에서 id를 찾으므로 member 테이블을 훑지 않는다.
+    @GetMapping("/members/search")
+    public List<MemberDto> search(@RequestParam("q") String q,
+                                  @RequestParam(value = "mode", defaultValue = "prefix") String mode,
+                                  @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+        List<Member> members;
+        switch (mode) {
+            case "prefix":
+                members = memberSearchRepository.searchByPrefix(q, size);
+                break;
+            case "substring":
+                members = memberSearchRepository.searchBySubstring(q, size);
+                break;
+            default:
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "unknown search mode: " + mode);
+        }
+        List<MemberDto> result = new ArrayList<>(members.size());
+        for (Member member : members) {
+            result.add(new MemberDto(member));
+        }
+        return result;
+    }
+
+    //페이지 내용, 전체 member 수, 전체 team 수를 dbExecutor에서 동시에 조회해서 조합한다.
+    //응답 시간은 세 조회의 합이 아니라 가장 느린 조회 하나에 가까워진다.
+    @GetMapping("/members/overview")
+    public CompletableFuture<MemberOverviewDto> overview(@PageableDefault(size = 5) Pageable pageable) {
+        CompletableFuture<List<MemberDto>> content = memberRepository.findMemberDtoListAsync(pageable);
+        CompletableFuture<Long> memberCount = memberRepository.countMembersAsync();
+        CompletableFuture<Long> teamCount = teamRepository.countTeamsAsync();
+
+        return CompletableFuture.allOf(content, memberCount, teamCount)
+                .thenApply(ignored -> new MemberOverviewDto(
+                        new PageImpl<>(content.join(), pageable, memberCount.join()),
+                        teamCount.join()));
+    }
+
+    //age 이상인 member의 나이를 chunk 단위로 커밋하면서 1씩 올린다. 작업은 백그라운드에서 실행되고 바로 응답한다.
+    @PostMapping("/members/bulk-age-plus")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public BulkAgePlusJob bulkAgePlus(@RequestParam int age,
+                                      @RequestParam(defaultValue = "" + MemberBulkUpdateService.DEFAULT_CHUNK_SIZE) int chunkSize,
+                                      @RequestParam(defaultValue = "0") long afterId) {
+        if (chunkSize < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "chunkSize must be positive");
+        }
+        return memberBulkUpdateService.start(age, chunkSize, afterId);
+    }
+
+    @GetMapping("/members/bulk-age-plus/{jobId}")
+    public BulkAgePlusJob bulkAgePlusJob(@PathVariable String jobId) {
+        return memberBulkUpdateService.find(jobId).orElseThrow(() -> jobNotFound(jobId));
+    }
+
+    //실패한 작업을 마지막으로 커밋된 chunk 다음부터 다시 실행한다.
+    @PostMapping("/members/bulk-age-plus/{jobId}/resume")
+    public BulkAgePlusJob resumeBulkAgePlus(@PathVariable String jobId) {
+        return memberBulkUpdateService.resume(jobId).orElseThrow(() -> jobNotFound(jobId));
+    }
+
+    private ResponseStatusException jobNotFound(String jobId) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "unknown job: " + jobId);
+    }
+
+    //전체 member를 한 줄에 하나씩 json(NDJSON)으로 응답 스트림에 바로 쓴다.
+    @GetMapping("/members/export")
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType(MemberExportService.CONTENT_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        memberExportService.exportNdjson(response.getOutputStream());
+    }
+
+    //csv(username,age,team)로 member를 대량 등록한다. 요청 본문을 한 줄씩 읽으면서 chunk 단위로 저장한다.
+//    curl -X POST -H 'Content-Type: text/csv' --data-binary @members.csv http://localhost:8080/members/import
+    @PostMapping(value = "/members/import", consumes = {"text/csv", "text/plain"})
+    public MemberImportResult importMembers(HttpServletRequest request,
+                                            @RequestParam(defaultValue = "" + MemberImportService.DEFAULT_CHUNK_SIZE) int chunkSize)
+            throws IOException {
+        if (chunkSize < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "chunkSize must be positive");
+        }
+        return memberImportService.importCsv(request.getInputStream(), chunkSize);
+    }
+
+    private MemberCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return MemberCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
         }
     }
 
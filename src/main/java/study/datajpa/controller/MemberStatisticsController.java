@@ -0,0 +1,47 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.dto.TeamStatsDto;
+import study.datajpa.repository.MemberStatisticsRepository;
+
+import java.util.List;
+import java.util.Map;
+
+//member 테이블을 읽지 않고 메모리 집계에서 바로 응답한다.
+@RestController
+@RequestMapping("/members/stats")
+@RequiredArgsConstructor
+public class MemberStatisticsController {
+    private final MemberStatisticsRepository memberStatisticsRepository;
+
+    @GetMapping("/ages")
+    public Map<Integer, Long> ages() {
+        return memberStatisticsRepository.countsByAge();
+    }
+
+    @GetMapping("/ages/{age}")
+    public long countByAge(@PathVariable int age) {
+        return memberStatisticsRepository.countByAge(age);
+    }
+
+    @GetMapping("/teams")
+    public List<TeamStatsDto> teams() {
+        return memberStatisticsRepository.allTeamStats();
+    }
+
+    @GetMapping("/teams/{teamId}")
+    public TeamStatsDto team(@PathVariable Long teamId) {
+        return memberStatisticsRepository.teamStats(teamId);
+    }
+
+    //DB에서 바로 다시 집계한다.
+    @PostMapping("/reconcile")
+    public void reconcile() {
+        memberStatisticsRepository.reconcile();
+    }
+}
@@ -0,0 +1,112 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.config.DbExecutorConfig;
+import study.datajpa.dto.CacheRegionStatsDto;
+import study.datajpa.dto.CoalescingStatsDto;
+import study.datajpa.dto.ExecutorStatsDto;
+import study.datajpa.dto.OptimisticRetryStatsDto;
+import study.datajpa.dto.QueryCountStatsDto;
+import study.datajpa.dto.RepositoryMethodStatsDto;
+import study.datajpa.dto.StartupStatsDto;
+import study.datajpa.metrics.QueryCounter;
+import study.datajpa.metrics.RepositoryMetrics;
+import study.datajpa.metrics.StartupTimings;
+import study.datajpa.repository.MemberLookupCoalescer;
+import study.datajpa.repository.OptimisticRetryTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@RestController
+@RequestMapping("/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+    private final EntityManagerFactory entityManagerFactory;
+    private final QueryCounter queryCounter;
+    private final RepositoryMetrics repositoryMetrics;
+    private final ThreadPoolTaskExecutor dbExecutor;
+    private final DbExecutorConfig.CountingCallerRunsPolicy dbExecutorRejectionPolicy;
+    private final OptimisticRetryTemplate optimisticRetryTemplate;
+    private final MemberLookupCoalescer memberLookupCoalescer;
+    private final StartupTimings startupTimings;
+
+    //2차 캐시 전체, 쿼리 캐시 전체, region별 hit/miss
+    @GetMapping("/cache")
+    public List<CacheRegionStatsDto> cache() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        List<CacheRegionStatsDto> result = new ArrayList<>();
+        result.add(new CacheRegionStatsDto("total",
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                0));
+        result.add(new CacheRegionStatsDto("query-cache",
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount(),
+                0));
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics == null) {
+                continue;
+            }
+            result.add(new CacheRegionStatsDto(region,
+                    regionStatistics.getHitCount(),
+                    regionStatistics.getMissCount(),
+                    regionStatistics.getPutCount(),
+                    regionStatistics.getElementCountInMemory()));
+        }
+        return result;
+    }
+
+    //http 요청별, 트랜잭션별 sql 실행 수
+    @GetMapping("/queries")
+    public List<QueryCountStatsDto> queries() {
+        return Arrays.asList(queryCounter.requestStats(), queryCounter.transactionStats());
+    }
+
+    //repository 메서드별 호출 수, 에러 수, 반환 행 수, 지연시간 (총 소요시간 순)
+    @GetMapping("/repositories")
+    public List<RepositoryMethodStatsDto> repositories() {
+        return repositoryMetrics.snapshot();
+    }
+
+    //dbExecutor 큐 길이와 backpressure(호출 스레드에서 직접 실행) 횟수
+    @GetMapping("/db-executor")
+    public ExecutorStatsDto dbExecutor() {
+        ThreadPoolExecutor executor = dbExecutor.getThreadPoolExecutor();
+        return new ExecutorStatsDto(executor.getPoolSize(), executor.getActiveCount(),
+                executor.getQueue().size(), executor.getQueue().remainingCapacity(),
+                executor.getCompletedTaskCount(), dbExecutorRejectionPolicy.getCallerRuns());
+    }
+
+    //@Version 충돌로 재시도한 횟수와 충돌 비율
+    @GetMapping("/optimistic-retry")
+    public OptimisticRetryStatsDto optimisticRetry() {
+        return optimisticRetryTemplate.stats();
+    }
+
+    //username 조회 중 다른 스레드의 조회와 합쳐진 호출 수
+    @GetMapping("/coalescing")
+    public CoalescingStatsDto coalescing() {
+        return memberLookupCoalescer.stats();
+    }
+
+    //JVM 시작부터 준비될 때까지 걸린 시간, 시작 단계별 시간, 준비된 뒤 백그라운드 작업 시간
+    @GetMapping("/startup")
+    public StartupStatsDto startup() {
+        return startupTimings.stats();
+    }
+}
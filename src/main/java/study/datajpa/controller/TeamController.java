@@ -0,0 +1,22 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.dto.TeamDto;
+import study.datajpa.repository.TeamRepository;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+    private final TeamRepository teamRepository;
+
+    //team 크기는 team.memberCount 컬럼에서 읽는다. (member를 세지 않는다)
+    @GetMapping("/teams")
+    public Page<TeamDto> list(@PageableDefault(size = 20) Pageable pageable) {
+        return teamRepository.findTeamDtoPage(pageable);
+    }
+}
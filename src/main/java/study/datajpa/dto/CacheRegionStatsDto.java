@@ -0,0 +1,24 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+@Getter
+public class CacheRegionStatsDto {
+
+    private final String region;
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final long elementCountInMemory;
+    private final double hitRatio;
+
+    public CacheRegionStatsDto(String region, long hitCount, long missCount, long putCount, long elementCountInMemory) {
+        this.region = region;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.elementCountInMemory = elementCountInMemory;
+        long lookups = hitCount + missCount;
+        this.hitRatio = lookups == 0 ? 0.0 : (double) hitCount / lookups;
+    }
+}
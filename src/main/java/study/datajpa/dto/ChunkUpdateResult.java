@@ -0,0 +1,22 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+//chunk 하나를 처리한 결과. scanned가 0이면 더 처리할 행이 없다.
+@Getter
+public class ChunkUpdateResult {
+
+    private final long lastId;
+    private final int scanned;
+    private final int updated;
+
+    public ChunkUpdateResult(long lastId, int scanned, int updated) {
+        this.lastId = lastId;
+        this.scanned = scanned;
+        this.updated = updated;
+    }
+
+    public boolean isEmpty() {
+        return scanned == 0;
+    }
+}
@@ -0,0 +1,22 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+@Getter
+public class CoalescingStatsDto {
+
+    //실제로 DB를 조회한 횟수
+    private final long queries;
+    //다른 스레드의 조회 결과를 기다려서 받은(합쳐진) 호출 수
+    private final long collapsed;
+    private final int inFlight;
+    private final double collapseRatio;
+
+    public CoalescingStatsDto(long queries, long collapsed, int inFlight) {
+        this.queries = queries;
+        this.collapsed = collapsed;
+        this.inFlight = inFlight;
+        long calls = queries + collapsed;
+        this.collapseRatio = calls == 0 ? 0.0 : (double) collapsed / calls;
+    }
+}
@@ -0,0 +1,38 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+//keyset 페이징 결과. 전체 count를 구하지 않고 size+1개를 조회해서 다음 페이지 존재 여부만 알려준다.
+@Getter
+public class CursorPage<T> {
+
+    private final List<T> content;
+    private final boolean hasNext;
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, boolean hasNext, String nextCursor) {
+        this.content = content;
+        this.hasNext = hasNext;
+        this.nextCursor = nextCursor;
+    }
+
+    //rows는 size+1개까지 조회된 결과여야 한다.
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<? super T, String> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)) : null;
+        return new CursorPage<>(content, hasNext, nextCursor);
+    }
+
+    public <U> CursorPage<U> map(Function<? super T, ? extends U> converter) {
+        List<U> converted = content.stream()
+                .map(converter)
+                .collect(Collectors.toList());
+        return new CursorPage<>(converted, hasNext, nextCursor);
+    }
+}
@@ -0,0 +1,24 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+@Getter
+public class ExecutorStatsDto {
+
+    private final int poolSize;
+    private final int activeCount;
+    private final int queueSize;
+    private final int queueRemainingCapacity;
+    private final long completedTasks;
+    private final long callerRuns;
+
+    public ExecutorStatsDto(int poolSize, int activeCount, int queueSize, int queueRemainingCapacity,
+                            long completedTasks, long callerRuns) {
+        this.poolSize = poolSize;
+        this.activeCount = activeCount;
+        this.queueSize = queueSize;
+        this.queueRemainingCapacity = queueRemainingCapacity;
+        this.completedTasks = completedTasks;
+        this.callerRuns = callerRuns;
+    }
+}
@@ -0,0 +1,21 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+//busyMillis는 그 단계를 실행한 모든 스레드의 시간을 더한 값이다.
+//rowsPerSecond는 스레드 하나 기준 처리량이므로 병렬로 실행되는 단계의 실제 처리량은 이보다 크다.
+@Getter
+public class ImportStageResult {
+
+    private final String stage;
+    private final long rows;
+    private final long busyMillis;
+    private final double rowsPerSecond;
+
+    public ImportStageResult(String stage, long rows, long busyNanos) {
+        this.stage = stage;
+        this.rows = rows;
+        this.busyMillis = busyNanos / 1_000_000;
+        this.rowsPerSecond = busyNanos == 0 ? 0 : rows * 1_000_000_000.0 / busyNanos;
+    }
+}
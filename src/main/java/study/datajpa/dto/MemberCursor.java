@@ -0,0 +1,46 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import study.datajpa.entity.Member;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+//keyset 페이징의 위치값. 클라이언트에게는 (id, username)을 인코딩한 불투명한 문자열로만 노출한다.
+@Getter
+public class MemberCursor {
+
+    private final String username;
+    private final Long id;
+
+    public MemberCursor(String username, Long id) {
+        this.username = username;
+        this.id = id;
+    }
+
+    public static MemberCursor of(Member member) {
+        return new MemberCursor(member.getUsername(), member.getId());
+    }
+
+    public String encode() {
+        String raw = id + ":" + username;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    //username에 ':'가 들어갈 수 있으므로 첫번째 ':' 기준으로 id와 username을 나눈다.
+    public static MemberCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("invalid cursor: " + cursor);
+            }
+            Long id = Long.valueOf(raw.substring(0, separator));
+            return new MemberCursor(raw.substring(separator + 1), id);
+        } catch (IllegalArgumentException e) {
+            //Base64 디코딩 실패, NumberFormatException 모두 여기로 온다.
+            throw new IllegalArgumentException("invalid cursor: " + cursor, e);
+        }
+    }
+}
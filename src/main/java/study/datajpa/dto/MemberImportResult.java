@@ -0,0 +1,37 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+//rejectedRows에는 앞에서부터 일부만 담기고 전체 개수는 rejected에 있다.
+@Getter
+public class MemberImportResult {
+
+    private final long rowsRead;
+    private final long imported;
+    private final long rejected;
+    private final int failedChunks;
+    private final int teamsCreated;
+    private final long elapsedMillis;
+    private final double rowsPerSecond;
+    //in-flight chunk가 가득 차서 읽기가 멈춰 있던 시간. 길면 저장 단계가 병목이다.
+    private final long readBlockedMillis;
+    private final List<ImportStageResult> stages;
+    private final List<RejectedRow> rejectedRows;
+
+    public MemberImportResult(long rowsRead, long imported, long rejected, int failedChunks, int teamsCreated,
+                              long elapsedMillis, long readBlockedMillis,
+                              List<ImportStageResult> stages, List<RejectedRow> rejectedRows) {
+        this.rowsRead = rowsRead;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.failedChunks = failedChunks;
+        this.teamsCreated = teamsCreated;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = elapsedMillis == 0 ? 0 : imported * 1000.0 / elapsedMillis;
+        this.readBlockedMillis = readBlockedMillis;
+        this.stages = stages;
+        this.rejectedRows = rejectedRows;
+    }
+}
@@ -0,0 +1,16 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+
+@Getter
+public class MemberOverviewDto {
+
+    private final Page<MemberDto> members;
+    private final long teamCount;
+
+    public MemberOverviewDto(Page<MemberDto> members, long teamCount) {
+        this.members = members;
+        this.teamCount = teamCount;
+    }
+}
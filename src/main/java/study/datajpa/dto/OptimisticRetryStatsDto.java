@@ -0,0 +1,22 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+@Getter
+public class OptimisticRetryStatsDto {
+
+    private final long executions;
+    private final long attempts;
+    private final long conflicts;
+    private final long exhausted;
+    //시도 중 버전 충돌로 실패한 비율
+    private final double conflictRate;
+
+    public OptimisticRetryStatsDto(long executions, long attempts, long conflicts, long exhausted) {
+        this.executions = executions;
+        this.attempts = attempts;
+        this.conflicts = conflicts;
+        this.exhausted = exhausted;
+        this.conflictRate = attempts == 0 ? 0.0 : (double) conflicts / attempts;
+    }
+}
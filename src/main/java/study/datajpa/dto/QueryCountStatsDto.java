@@ -0,0 +1,23 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+@Getter
+public class QueryCountStatsDto {
+
+    private final String scope;
+    private final long count;
+    private final long statements;
+    private final long violations;
+    private final long maxStatements;
+    private final double averageStatements;
+
+    public QueryCountStatsDto(String scope, long count, long statements, long violations, long maxStatements) {
+        this.scope = scope;
+        this.count = count;
+        this.statements = statements;
+        this.violations = violations;
+        this.maxStatements = maxStatements;
+        this.averageStatements = count == 0 ? 0.0 : (double) statements / count;
+    }
+}
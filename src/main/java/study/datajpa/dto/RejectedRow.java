@@ -0,0 +1,15 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+@Getter
+public class RejectedRow {
+
+    private final long line;
+    private final String reason;
+
+    public RejectedRow(long line, String reason) {
+        this.line = line;
+        this.reason = reason;
+    }
+}
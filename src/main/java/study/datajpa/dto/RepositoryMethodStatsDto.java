@@ -0,0 +1,33 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+//지연시간은 마이크로초 단위
+@Getter
+public class RepositoryMethodStatsDto {
+
+    private final String method;
+    private final long calls;
+    private final long errors;
+    private final long rows;
+    private final double totalMillis;
+    private final double meanMicros;
+    private final double p50Micros;
+    private final double p95Micros;
+    private final double p99Micros;
+    private final double maxMicros;
+
+    public RepositoryMethodStatsDto(String method, long calls, long errors, long rows, long totalNanos,
+                                    long p50Nanos, long p95Nanos, long p99Nanos, long maxNanos) {
+        this.method = method;
+        this.calls = calls;
+        this.errors = errors;
+        this.rows = rows;
+        this.totalMillis = totalNanos / 1_000_000.0;
+        this.meanMicros = calls == 0 ? 0.0 : totalNanos / 1_000.0 / calls;
+        this.p50Micros = p50Nanos / 1_000.0;
+        this.p95Micros = p95Nanos / 1_000.0;
+        this.p99Micros = p99Nanos / 1_000.0;
+        this.maxMicros = maxNanos / 1_000.0;
+    }
+}
@@ -0,0 +1,26 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+public class StartupStatsDto {
+
+    //JVM 시작부터 ApplicationReadyEvent까지. 아직 준비되지 않았으면 -1
+    private final long readyMillis;
+    //단계 이름별 합계. 단계는 중첩되므로(bean 생성 안에서 다른 bean 생성) 합계끼리 더하면 안 된다.
+    private final List<StartupStepDto> phases;
+    private final List<StartupStepDto> slowestSteps;
+    //준비된 뒤 백그라운드에서 실행한 작업(query-warmup, seed)의 시간
+    private final Map<String, Long> backgroundMillis;
+
+    public StartupStatsDto(long readyMillis, List<StartupStepDto> phases, List<StartupStepDto> slowestSteps,
+                           Map<String, Long> backgroundMillis) {
+        this.readyMillis = readyMillis;
+        this.phases = phases;
+        this.slowestSteps = slowestSteps;
+        this.backgroundMillis = backgroundMillis;
+    }
+}
@@ -0,0 +1,18 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+//detail: 단계의 태그(beanName 등). 여러 번 실행된 단계를 합친 경우에는 실행 횟수
+@Getter
+public class StartupStepDto {
+
+    private final String name;
+    private final String detail;
+    private final long millis;
+
+    public StartupStepDto(String name, String detail, long millis) {
+        this.name = name;
+        this.detail = detail;
+        this.millis = millis;
+    }
+}
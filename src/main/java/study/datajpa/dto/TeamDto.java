@@ -0,0 +1,17 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+@Getter
+public class TeamDto {
+
+    private final Long id;
+    private final String name;
+    private final int memberCount;
+
+    public TeamDto(Long id, String name, int memberCount) {
+        this.id = id;
+        this.name = name;
+        this.memberCount = memberCount;
+    }
+}
@@ -0,0 +1,17 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+@Getter
+public class TeamStatsDto {
+
+    private final Long teamId;
+    private final long memberCount;
+    private final double averageAge;
+
+    public TeamStatsDto(Long teamId, long memberCount, double averageAge) {
+        this.teamId = teamId;
+        this.memberCount = memberCount;
+        this.averageAge = averageAge;
+    }
+}
@@ -1,31 +1,41 @@
 package study.datajpa.entity;
 
 import lombok.Getter;
-import org.springframework.data.annotation.CreatedBy;
-import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.annotation.LastModifiedBy;
-import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.Column;
 import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
 import java.time.LocalDateTime;
 
+//감사 필드는 BaseEntityAuditListener가 채운다. (작성자는 AuditorAware 빈, 생성 시에는 수정 필드도 같이 채운다)
 @MappedSuperclass
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners(BaseEntityAuditListener.class)
 @Getter
 public class BaseEntity {
-    @CreatedDate
     @Column(updatable = false)
     private LocalDateTime createDate;
-    @LastModifiedDate
     private LocalDateTime updateDate;
 
-    @CreatedBy
     @Column(updatable = false)
     private String createBy;
 
-    @LastModifiedBy
     private String lastModifiedBy;
+
+    void markCreated(LocalDateTime now, String auditor) {
+        this.createDate = now;
+        this.createBy = auditor;
+        markModified(now, auditor);
+    }
+
+    void markModified(LocalDateTime now, String auditor) {
+        this.updateDate = now;
+        this.lastModifiedBy = auditor;
+    }
+
+    protected void copyAuditFrom(BaseEntity source) {
+        this.createDate = source.createDate;
+        this.updateDate = source.updateDate;
+        this.createBy = source.createBy;
+        this.lastModifiedBy = source.lastModifiedBy;
+    }
 }
@@ -0,0 +1,34 @@
+package study.datajpa.entity;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.AuditorAware;
+
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import java.time.LocalDateTime;
+
+//AuditingEntityListener는 엔티티마다 @CreatedDate 등의 필드를 리플렉션으로 찾아서 채우지만,
+//BaseEntity의 필드는 정해져 있으므로 바로 채운다.
+//hibernate가 스프링 빈 컨테이너로 만들어 주므로 AuditorAware를 주입받을 수 있다.
+public class BaseEntityAuditListener {
+    private final ObjectProvider<AuditorAware<String>> auditorAware;
+
+    public BaseEntityAuditListener(ObjectProvider<AuditorAware<String>> auditorAware) {
+        this.auditorAware = auditorAware;
+    }
+
+    @PrePersist
+    public void prePersist(Object entity) {
+        ((BaseEntity) entity).markCreated(LocalDateTime.now(), currentAuditor());
+    }
+
+    @PreUpdate
+    public void preUpdate(Object entity) {
+        ((BaseEntity) entity).markModified(LocalDateTime.now(), currentAuditor());
+    }
+
+    private String currentAuditor() {
+        AuditorAware<String> aware = auditorAware.getIfAvailable();
+        return aware == null ? null : aware.getCurrentAuditor().orElse(null);
+    }
+}
@@ -4,6 +4,7 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.domain.Persistable;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
@@ -30,6 +31,9 @@ public class Item implements Persistable<String> {
     //persist를 하기전에 실행됨.
     @CreatedDate
     private LocalDateTime createdDate;
+    //ItemRepository.upsertAll은 이미 있는 item의 createdDate는 그대로 두고 이 값만 바꾼다.
+    @LastModifiedDate
+    private LocalDateTime lastModifiedDate;
     public Item(String id){
         this.id = id;
     }
@@ -1,22 +1,43 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
+//username_id: keyset 페이징(username, id 순서)과 username 단건 조회
+//username_age: username + age 조건 조회(findUser, findByUsernameAndAgeGreaterThan)
+//age: 나이 조건 조회와 bulkAgePlus, 나이 순 정렬(findTop3ByOrderByAgeAsc)
+//ddl-auto로 스키마를 만들 때 같이 생성된다. (MemberQueryPlanTest에서 실행 계획을 검사한다)
+@Table(indexes = {
+        @Index(name = "idx_member_username_id", columnList = "username, member_id"),
+        @Index(name = "idx_member_username_age", columnList = "username, age"),
+        @Index(name = "idx_member_age", columnList = "age")
+})
 public class Member extends BaseEntity {
+    //IDENTITY는 insert를 해야 id를 알 수 있어서 hibernate가 insert batch를 꺼버린다.
+    //sequence + pooled optimizer로 한번에 allocationSize만큼 id를 받아오면 batch insert가 가능하다.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
     private String username;
     private int age;
 
+    //낙관적 락. 동시에 같은 member를 수정하면 나중에 커밋하는 쪽이 OptimisticLockException으로 실패한다.
+    //bulk update는 버전을 올리도록 'update versioned'로 실행한다.
+    @Version
+    private Long version;
+
     public Member(String username, int age, Team team) {
         this.username = username;
         this.age = age;
@@ -30,6 +51,8 @@ public class Member extends BaseEntity {
         this.age = age;
     }
 
+    //team.memberCount를 같이 바꿔야 하므로 setter 대신 changeTeam을 사용한다.
+    @Setter(AccessLevel.NONE)
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "Team_id")
     private Team team;
@@ -42,10 +65,46 @@ public class Member extends BaseEntity {
         this.username = username;
     }
 
+    //이전 team에서 빼고 새 team에 넣으면서 양쪽 team의 memberCount를 같은 트랜잭션에서 바꾼다.
+    //Team에 @Version이 있으므로 같은 team을 동시에 바꾸는 트랜잭션은 하나만 커밋된다.
+    //새 member의 team이 준영속이면 persist 할 때 MemberTeamPersistListener가 영속 team으로 다시 넣는다.
     public void changeTeam(Team team) {
+        if (this.team == team) {
+            return;
+        }
+        if (this.team != null) {
+            this.team.removeMember(this);
+        }
         this.team = team;
-        team.getMembers().add(this);
+        if (team != null) {
+            team.addMember(this);
+        }
     }
 
+    //bulk 저장 전용. team을 초기화하지 않고 외래 키만 채우므로 team의 memberCount와 members 컬렉션은 바뀌지 않는다.
+    //저장 후 TeamRepository.refreshMemberCounts로 memberCount를 다시 맞춰야 한다. (MemberImportService)
+    public static Member withTeamReference(String username, int age, Team team) {
+        Member member = new Member(username, age);
+        member.team = team;
+        return member;
+    }
 
+    //member를 지우면 team의 memberCount도 줄인다.
+    @PreRemove
+    void preRemove() {
+        if (team != null) {
+            team.removeMember(this);
+        }
+    }
+
+    //영속성 컨텍스트와 관계없는 복사본. 여러 스레드가 같은 조회 결과를 나눠 가질 때 사용한다.
+    //team은 members 컬렉션 없이 id, name만 복사하므로 team이 초기화된 상태에서만 호출해야 한다.
+    public Member copy() {
+        Member copy = new Member(username, age);
+        copy.id = id;
+        copy.version = version;
+        copy.team = team == null ? null : team.copy();
+        copy.copyAuditFrom(this);
+        return copy;
+    }
 }
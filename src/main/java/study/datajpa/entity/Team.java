@@ -1,26 +1,65 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of={"id","name"})
 public class Team {
+    //기본 sequence는 allocationSize가 1이라 insert마다 sequence를 조회한다.
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50)
     @Column(name = "Team_id")
     private Long id;
     private String name;
+    @Version
+    private Long version;
+    //members 컬렉션을 초기화하거나 count 쿼리 없이 team 크기를 알 수 있도록 유지하는 값.
+    //Member.changeTeam, Member 삭제 시 바뀌고, bulk 연산 후에는 TeamRepository.refreshMemberCounts로 다시 맞춘다.
+    @Setter(AccessLevel.NONE)
+    @Column(nullable = false)
+    private int memberCount;
+    //컬렉션 캐시에는 member id만 들어가고 member 자체는 Member 엔티티 캐시에서 찾는다.
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
         this.name = name;
     }
+
+    //Member.changeTeam에서만 호출한다.
+    void addMember(Member member) {
+        members.add(member);
+        memberCount++;
+    }
+
+    //컬렉션이 아직 로딩되지 않았으면 count만 줄인다. (빼려고 컬렉션 전체를 조회하지 않는다)
+    void removeMember(Member member) {
+        if (Hibernate.isInitialized(members)) {
+            members.remove(member);
+        }
+        memberCount = Math.max(0, memberCount - 1);
+    }
+
+    //members 컬렉션은 복사하지 않는다. (Member.copy 참고)
+    public Team copy() {
+        Team copy = new Team(name);
+        copy.id = id;
+        copy.version = version;
+        copy.memberCount = memberCount;
+        return copy;
+    }
 }
@@ -0,0 +1,44 @@
+package study.datajpa.metrics;
+
+import lombok.Getter;
+import study.datajpa.dto.RepositoryMethodStatsDto;
+
+import java.util.concurrent.atomic.LongAdder;
+
+//repository 메서드 하나의 호출 수, 에러 수, 반환 행 수, 지연시간
+public class MethodMetrics {
+    @Getter
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public MethodMetrics(String name) {
+        this.name = name;
+    }
+
+    void success(long nanos, long returnedRows) {
+        calls.increment();
+        rows.add(returnedRows);
+        totalNanos.add(nanos);
+        latency.record(nanos);
+    }
+
+    void failure(long nanos) {
+        calls.increment();
+        errors.increment();
+        totalNanos.add(nanos);
+        latency.record(nanos);
+    }
+
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+    public RepositoryMethodStatsDto toDto() {
+        return new RepositoryMethodStatsDto(name, calls.sum(), errors.sum(), rows.sum(), totalNanos.sum(),
+                latency.percentile(0.5), latency.percentile(0.95), latency.percentile(0.99), latency.max());
+    }
+}
@@ -0,0 +1,8 @@
+package study.datajpa.metrics;
+
+//datajpa.query-count.fail-on-violation=true 일 때 sql 수 한도를 넘으면 발생한다.
+public class QueryBudgetExceededException extends RuntimeException {
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+}
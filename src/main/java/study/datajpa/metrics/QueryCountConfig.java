@@ -0,0 +1,21 @@
+package study.datajpa.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class QueryCountConfig {
+
+    //hibernate가 sql을 prepare 하기 직전에 QueryCounter에 기록한다. sql은 바꾸지 않는다.
+    @Bean
+    public HibernatePropertiesCustomizer queryCountInspector(QueryCounter queryCounter) {
+        StatementInspector inspector = sql -> {
+            queryCounter.record(sql);
+            return sql;
+        };
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+}
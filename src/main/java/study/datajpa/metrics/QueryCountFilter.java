@@ -0,0 +1,27 @@
+package study.datajpa.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+//http 요청 하나 동안 실행된 sql을 센다.
+@Component
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+    private final QueryCounter queryCounter;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        try (QueryScope ignored = queryCounter.open(request.getMethod() + " " + request.getRequestURI(),
+                QueryScope.Kind.REQUEST)) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
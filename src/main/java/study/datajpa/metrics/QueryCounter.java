@@ -0,0 +1,153 @@
+package study.datajpa.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.dto.QueryCountStatsDto;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+//hibernate가 실행하는 sql을 스레드별로 열려있는 QueryScope에 기록한다.
+//http 요청 구간은 QueryCountFilter가, 트랜잭션 구간은 첫 sql이 실행될 때 자동으로 열린다.
+//같은 모양의 sql이 여러번 반복되면 N+1을 의심할 수 있다.
+@Slf4j
+@Component
+public class QueryCounter {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IN_LIST = Pattern.compile("in \\(\\?(\\s*,\\s*\\?)*\\)", Pattern.CASE_INSENSITIVE);
+
+    private final ThreadLocal<Deque<QueryScope>> scopes = ThreadLocal.withInitial(ArrayDeque::new);
+    private final int maxStatements;
+    private final int maxRepeated;
+    private final boolean failOnViolation;
+    private final ScopeStats requestStats = new ScopeStats();
+    private final ScopeStats transactionStats = new ScopeStats();
+
+    public QueryCounter(@Value("${datajpa.query-count.max-statements:50}") int maxStatements,
+                        @Value("${datajpa.query-count.max-repeated:10}") int maxRepeated,
+                        @Value("${datajpa.query-count.fail-on-violation:false}") boolean failOnViolation) {
+        this.maxStatements = maxStatements;
+        this.maxRepeated = maxRepeated;
+        this.failOnViolation = failOnViolation;
+    }
+
+    //테스트 등에서 직접 구간을 열 때 사용. try-with-resources로 닫는다.
+    public QueryScope open(String name) {
+        return open(name, QueryScope.Kind.MANUAL);
+    }
+
+    QueryScope open(String name, QueryScope.Kind kind) {
+        QueryScope scope = new QueryScope(this, name, kind);
+        scopes.get().push(scope);
+        return scope;
+    }
+
+    //StatementInspector에서 sql이 prepare 될 때마다 호출된다.
+    void record(String sql) {
+        Deque<QueryScope> active = scopes.get();
+        openTransactionScopeIfNeeded();
+        if (active.isEmpty()) {
+            return;
+        }
+        String shape = shapeOf(sql);
+        for (QueryScope scope : active) {
+            scope.record(shape);
+            if (failOnViolation && scope.getKind() != QueryScope.Kind.MANUAL && exceeds(scope)) {
+                throw new QueryBudgetExceededException(describe(scope));
+            }
+        }
+    }
+
+    void complete(QueryScope scope) {
+        scopes.get().remove(scope);
+        if (scope.getKind() == QueryScope.Kind.MANUAL) {
+            return;
+        }
+        boolean violation = exceeds(scope);
+        statsOf(scope.getKind()).record(scope.getStatementCount(), violation);
+        if (violation) {
+            log.warn(describe(scope));
+        }
+    }
+
+    public QueryCountStatsDto requestStats() {
+        return requestStats.toDto("request");
+    }
+
+    public QueryCountStatsDto transactionStats() {
+        return transactionStats.toDto("transaction");
+    }
+
+    //공백을 정리하고 in (?, ?, ...)을 in (?)로 합쳐서 파라미터 수만 다른 sql을 같은 모양으로 본다.
+    static String shapeOf(String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return IN_LIST.matcher(shape).replaceAll("in (?)");
+    }
+
+    private void openTransactionScopeIfNeeded() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TransactionScopeSynchronization) {
+                return;
+            }
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        QueryScope scope = open(name == null ? "transaction" : name, QueryScope.Kind.TRANSACTION);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionScopeSynchronization(scope));
+    }
+
+    private boolean exceeds(QueryScope scope) {
+        return scope.getStatementCount() > maxStatements || scope.getMaxRepeats() > maxRepeated;
+    }
+
+    private String describe(QueryScope scope) {
+        return String.format("%s '%s' executed %d statements (limit %d), most repeated %d times (limit %d): %s",
+                scope.getKind(), scope.getName(), scope.getStatementCount(), maxStatements,
+                scope.getMaxRepeats(), maxRepeated, scope.getMostRepeatedShape());
+    }
+
+    private ScopeStats statsOf(QueryScope.Kind kind) {
+        return kind == QueryScope.Kind.REQUEST ? requestStats : transactionStats;
+    }
+
+    private static final class TransactionScopeSynchronization implements TransactionSynchronization {
+        private final QueryScope scope;
+
+        private TransactionScopeSynchronization(QueryScope scope) {
+            this.scope = scope;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            scope.close();
+        }
+    }
+
+    private static final class ScopeStats {
+        private final LongAdder scopes = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder violations = new LongAdder();
+        private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+
+        void record(int statementCount, boolean violation) {
+            scopes.increment();
+            statements.add(statementCount);
+            maxStatements.accumulate(statementCount);
+            if (violation) {
+                violations.increment();
+            }
+        }
+
+        QueryCountStatsDto toDto(String name) {
+            return new QueryCountStatsDto(name, scopes.sum(), statements.sum(), violations.sum(), maxStatements.get());
+        }
+    }
+}
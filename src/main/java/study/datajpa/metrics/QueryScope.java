@@ -0,0 +1,52 @@
+package study.datajpa.metrics;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//한 구간(http 요청, 트랜잭션, 테스트 등) 동안 실행된 sql 수와 같은 모양의 sql 반복 횟수.
+//스레드 하나에서만 사용된다.
+@Getter
+public class QueryScope implements AutoCloseable {
+
+    public enum Kind {
+        REQUEST, TRANSACTION, MANUAL
+    }
+
+    @Getter(AccessLevel.NONE)
+    private final QueryCounter counter;
+    private final String name;
+    private final Kind kind;
+    private final Map<String, Integer> shapes = new LinkedHashMap<>();
+    private int statementCount;
+    private int maxRepeats;
+    private String mostRepeatedShape;
+
+    QueryScope(QueryCounter counter, String name, Kind kind) {
+        this.counter = counter;
+        this.name = name;
+        this.kind = kind;
+    }
+
+    void record(String shape) {
+        statementCount++;
+        int repeats = shapes.merge(shape, 1, Integer::sum);
+        if (repeats > maxRepeats) {
+            maxRepeats = repeats;
+            mostRepeatedShape = shape;
+        }
+    }
+
+    //실행 순서대로 정리된 sql 모양 -> 실행 횟수
+    public Map<String, Integer> getShapes() {
+        return Collections.unmodifiableMap(shapes);
+    }
+
+    @Override
+    public void close() {
+        counter.complete(this);
+    }
+}
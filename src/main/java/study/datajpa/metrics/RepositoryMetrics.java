@@ -0,0 +1,27 @@
+package study.datajpa.metrics;
+
+import org.springframework.stereotype.Component;
+import study.datajpa.dto.RepositoryMethodStatsDto;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+//모든 repository 메서드의 MethodMetrics 모음
+@Component
+public class RepositoryMetrics {
+    private final ConcurrentHashMap<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    MethodMetrics register(String name) {
+        return methods.computeIfAbsent(name, MethodMetrics::new);
+    }
+
+    //DB 시간을 많이 쓰는 메서드 순서
+    public List<RepositoryMethodStatsDto> snapshot() {
+        return methods.values().stream()
+                .sorted(Comparator.comparingLong(MethodMetrics::totalNanos).reversed())
+                .map(MethodMetrics::toDto)
+                .collect(Collectors.toList());
+    }
+}
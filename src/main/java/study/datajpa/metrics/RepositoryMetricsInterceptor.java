@@ -0,0 +1,76 @@
+package study.datajpa.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Slice;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+//repository 하나에 붙는 interceptor. 처음 호출된 메서드만 등록하고 이후에는 조회만 하므로
+//호출 경로에서 객체를 생성하지 않는다.
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+    private final String repositoryName;
+    private final RepositoryMetrics repositoryMetrics;
+    private final ConcurrentHashMap<Method, MethodMetrics> methods = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsInterceptor(String repositoryName, RepositoryMetrics repositoryMetrics) {
+        this.repositoryName = repositoryName;
+        this.repositoryMetrics = repositoryMetrics;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MethodMetrics metrics = metricsOf(invocation.getMethod());
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            if (result instanceof CompletionStage) {
+                //@Async 메서드는 작업을 넘기자마자 반환하므로 future가 끝났을 때 기록한다.
+                //(이 interceptor는 @Async interceptor 바깥에 있다)
+                ((CompletionStage<?>) result).whenComplete((value, e) -> {
+                    if (e != null) {
+                        metrics.failure(System.nanoTime() - start);
+                    } else {
+                        metrics.success(System.nanoTime() - start, rowsOf(value));
+                    }
+                });
+                return result;
+            }
+            metrics.success(System.nanoTime() - start, rowsOf(result));
+            return result;
+        } catch (Throwable e) {
+            metrics.failure(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private MethodMetrics metricsOf(Method method) {
+        MethodMetrics metrics = methods.get(method);
+        if (metrics == null) {
+            metrics = repositoryMetrics.register(repositoryName + "." + method.getName());
+            methods.putIfAbsent(method, metrics);
+        }
+        return metrics;
+    }
+
+    //반환된 엔티티/dto 수. count, update 결과 같은 숫자는 행으로 세지 않는다.
+    private static long rowsOf(Object result) {
+        if (result == null || result instanceof Number || result instanceof Boolean) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,61 @@
+package study.datajpa.metrics;
+
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+
+//spring data repository(MemberRepository 등)와 @Repository 클래스(MemberJpaRepository 등)에
+//RepositoryMetricsInterceptor를 가장 바깥쪽 advice로 붙인다. (트랜잭션 시간까지 포함해서 측정)
+@Component
+public class RepositoryMetricsPostProcessor implements BeanPostProcessor, Ordered {
+    private final RepositoryMetrics repositoryMetrics;
+
+    public RepositoryMetricsPostProcessor(RepositoryMetrics repositoryMetrics) {
+        this.repositoryMetrics = repositoryMetrics;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> repositoryType = repositoryTypeOf(bean);
+        if (repositoryType == null) {
+            return bean;
+        }
+        RepositoryMetricsInterceptor interceptor =
+                new RepositoryMetricsInterceptor(repositoryType.getSimpleName(), repositoryMetrics);
+
+        if (bean instanceof Advised && !((Advised) bean).isFrozen()) {
+            ((Advised) bean).addAdvice(0, interceptor);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(interceptor);
+        return proxyFactory.getProxy(repositoryType.getClassLoader());
+    }
+
+    private Class<?> repositoryTypeOf(Object bean) {
+        if (bean instanceof org.springframework.data.repository.Repository) {
+            for (Class<?> type : bean.getClass().getInterfaces()) {
+                if (org.springframework.data.repository.Repository.class.isAssignableFrom(type)
+                        && !type.getName().startsWith("org.springframework.")) {
+                    return type;
+                }
+            }
+            return null;
+        }
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        if (AnnotatedElementUtils.hasAnnotation(targetClass, org.springframework.stereotype.Repository.class)) {
+            return targetClass;
+        }
+        return null;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
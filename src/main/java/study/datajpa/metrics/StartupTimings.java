@@ -0,0 +1,88 @@
+package study.datajpa.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+import study.datajpa.dto.StartupStatsDto;
+import study.datajpa.dto.StartupStepDto;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+//애플리케이션 시작 단계별 시간. (/metrics/startup)
+//DataJpaApplication.main에서 BufferingApplicationStartup을 설정했을 때만 단계별 시간이 있다. (테스트 컨텍스트에는 없음)
+//준비된 뒤에 한번 로그로 남기므로 배포마다 시작 시간이 늘어났는지 확인할 수 있다.
+@Slf4j
+@Component
+public class StartupTimings {
+    private static final int SLOWEST_STEPS = 20;
+
+    private final Map<String, Long> backgroundMillis = new ConcurrentHashMap<>();
+    private volatile long readyMillis = -1;
+    private volatile List<StartupStepDto> phases = Collections.emptyList();
+    private volatile List<StartupStepDto> slowestSteps = Collections.emptyList();
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        ApplicationStartup startup = event.getApplicationContext().getApplicationStartup();
+        if (startup instanceof BufferingApplicationStartup) {
+            //getBufferedTimeline은 버퍼를 비우지 않는다. (drain은 비운다)
+            summarize(((BufferingApplicationStartup) startup).getBufferedTimeline());
+        }
+        log.info("application ready in {}ms", readyMillis);
+        for (StartupStepDto step : slowestSteps.subList(0, Math.min(10, slowestSteps.size()))) {
+            log.info("  startup step {} {} {}ms", step.getName(), step.getDetail(), step.getMillis());
+        }
+    }
+
+    //준비된 뒤 백그라운드에서 끝난 작업의 시간 (QueryWarmup, MemberSeeder)
+    public void recordBackground(String name, long millis) {
+        backgroundMillis.put(name, millis);
+        log.info("background startup task {} finished in {}ms", name, millis);
+    }
+
+    public StartupStatsDto stats() {
+        return new StartupStatsDto(readyMillis, phases, slowestSteps, new LinkedHashMap<>(backgroundMillis));
+    }
+
+    private void summarize(StartupTimeline timeline) {
+        Map<String, long[]> byName = new LinkedHashMap<>();
+        List<StartupStepDto> steps = new ArrayList<>(timeline.getEvents().size());
+        for (StartupTimeline.TimelineEvent event : timeline.getEvents()) {
+            long millis = event.getDuration().toMillis();
+            String name = event.getStartupStep().getName();
+            long[] total = byName.computeIfAbsent(name, key -> new long[2]);
+            total[0] += millis;
+            total[1]++;
+            steps.add(new StartupStepDto(name, tags(event.getStartupStep()), millis));
+        }
+        List<StartupStepDto> phaseList = new ArrayList<>(byName.size());
+        byName.forEach((name, total) -> phaseList.add(new StartupStepDto(name, "count=" + total[1], total[0])));
+        phaseList.sort(Comparator.comparingLong(StartupStepDto::getMillis).reversed());
+        steps.sort(Comparator.comparingLong(StartupStepDto::getMillis).reversed());
+
+        phases = Collections.unmodifiableList(phaseList);
+        slowestSteps = Collections.unmodifiableList(new ArrayList<>(steps.subList(0, Math.min(SLOWEST_STEPS, steps.size()))));
+    }
+
+    private static String tags(StartupStep step) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (StartupStep.Tag tag : step.getTags()) {
+            joiner.add(tag.getKey() + "=" + tag.getValue());
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,26 @@
+package study.datajpa.repository;
+
+import javax.persistence.EntityManager;
+
+//bulkInsert 공통 로직.
+//chunk마다 flush로 jdbc batch를 보내고 clear로 영속성 컨텍스트를 비워서
+//엔티티 수가 많아도 메모리와 dirty checking 비용이 늘어나지 않게 한다.
+final class BatchInsertSupport {
+
+    private BatchInsertSupport() {
+    }
+
+    static int persistInChunks(EntityManager em, Iterable<?> entities, int chunkSize) {
+        int count = 0;
+        for (Object entity : entities) {
+            em.persist(entity);
+            if (++count % chunkSize == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        return count;
+    }
+}
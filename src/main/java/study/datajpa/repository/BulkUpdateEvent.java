@@ -0,0 +1,16 @@
+package study.datajpa.repository;
+
+import lombok.Getter;
+
+//엔티티 리스너를 거치지 않는 bulk update/delete가 실행되었다는 이벤트. (어떤 행이 바뀌었는지는 모른다)
+@Getter
+public class BulkUpdateEvent {
+
+    private final Class<?> domainType;
+    private final String operation;
+
+    public BulkUpdateEvent(Class<?> domainType, String operation) {
+        this.domainType = domainType;
+        this.operation = operation;
+    }
+}
@@ -0,0 +1,64 @@
+package study.datajpa.repository;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.AbstractRepositoryMetadata;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+
+//spring data repository의 @Modifying 메서드와 deleteAllInBatch 같은 bulk 메서드가 끝나면 BulkUpdateEvent를 발행한다.
+//bulk 연산은 hibernate 엔티티 리스너를 거치지 않으므로 엔티티 이벤트로 유지하는 집계(MemberStatisticsRepository)가
+//이 이벤트를 받고 DB와 다시 맞춘다.
+@Component
+public class BulkUpdateEventPostProcessor implements BeanPostProcessor, ApplicationEventPublisherAware {
+    private ApplicationEventPublisher publisher;
+
+    @Override
+    public void setApplicationEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+        this.publisher = applicationEventPublisher;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof Repository) || !(bean instanceof Advised) || ((Advised) bean).isFrozen()) {
+            return bean;
+        }
+        Class<?> domainType = domainTypeOf(bean);
+        if (domainType == null) {
+            return bean;
+        }
+        MethodInterceptor interceptor = invocation -> {
+            Object result = invocation.proceed();
+            if (isBulk(invocation.getMethod())) {
+                publisher.publishEvent(new BulkUpdateEvent(domainType, invocation.getMethod().getName()));
+            }
+            return result;
+        };
+        ((Advised) bean).addAdvice(0, interceptor);
+        return bean;
+    }
+
+    private static Class<?> domainTypeOf(Object bean) {
+        for (Class<?> type : bean.getClass().getInterfaces()) {
+            if (Repository.class.isAssignableFrom(type) && !type.getName().startsWith("org.springframework.")) {
+                return AbstractRepositoryMetadata.getMetadata(type).getDomainType();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isBulk(Method method) {
+        String name = method.getName();
+        return AnnotatedElementUtils.hasAnnotation(method, Modifying.class)
+                || name.equals("deleteAllInBatch")
+                || name.equals("deleteInBatch")
+                || name.equals("deleteAllByIdInBatch");
+    }
+}
@@ -0,0 +1,92 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.config.DbExecutorConfig;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+//큰 in (...) 조회를 CHUNK_SIZE 단위로 나눠서 실행하고 결과를 chunk 순서대로 합친다.
+//chunk 크기를 2의 거듭제곱으로 고정하고 마지막 chunk는 hibernate의 in_clause_parameter_padding이
+//다음 2의 거듭제곱까지 채워주므로, 목록 크기가 달라도 쿼리 plan은 몇 개만 만들어진다.
+@Component
+public class ChunkedQueryExecutor {
+    public static final int CHUNK_SIZE = 512;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Executor dbExecutor;
+
+    public ChunkedQueryExecutor(EntityManagerFactory entityManagerFactory,
+                                PlatformTransactionManager transactionManager,
+                                @Qualifier("dbExecutor") Executor dbExecutor) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.dbExecutor = dbExecutor;
+    }
+
+    //호출한 쪽에 트랜잭션이나 열린 영속성 컨텍스트(OSIV)가 있으면 결과가 그 영속성 컨텍스트에 들어가도록
+    //현재 스레드에서 순서대로 실행한다. 없으면 chunk마다 별도의 읽기 전용 트랜잭션으로 dbExecutor에서 동시에 실행하고
+    //결과는 준영속 상태로 돌려준다.
+    //이미 dbExecutor 작업 안이면(@Async 메서드 등) 풀의 스레드끼리 서로 기다리지 않도록 현재 스레드에서 순서대로 실행한다.
+    public <P, R> List<R> query(Collection<P> params, Function<List<P>, List<R>> chunkQuery) {
+        List<P> distinct = new ArrayList<>(new LinkedHashSet<>(params));
+        if (distinct.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (distinct.size() <= CHUNK_SIZE) {
+            return chunkQuery.apply(distinct);
+        }
+        List<List<P>> chunks = partition(distinct);
+        List<R> result = new ArrayList<>();
+
+        if (hasPersistenceContext()) {
+            for (List<P> chunk : chunks) {
+                result.addAll(chunkQuery.apply(chunk));
+            }
+            return result;
+        }
+
+        if (DbExecutorConfig.isRunningDbTask()) {
+            for (List<P> chunk : chunks) {
+                result.addAll(readOnlyTransaction.execute(status -> chunkQuery.apply(chunk)));
+            }
+            return result;
+        }
+
+        List<CompletableFuture<List<R>>> futures = new ArrayList<>(chunks.size());
+        for (List<P> chunk : chunks) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> readOnlyTransaction.execute(status -> chunkQuery.apply(chunk)), dbExecutor));
+        }
+        for (CompletableFuture<List<R>> future : futures) {
+            result.addAll(future.join());
+        }
+        return result;
+    }
+
+    private boolean hasPersistenceContext() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.hasResource(entityManagerFactory);
+    }
+
+    private static <P> List<List<P>> partition(List<P> values) {
+        List<List<P>> chunks = new ArrayList<>((values.size() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        for (int from = 0; from < values.size(); from += CHUNK_SIZE) {
+            chunks.add(values.subList(from, Math.min(from + CHUNK_SIZE, values.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,15 @@
+package study.datajpa.repository;
+
+import study.datajpa.dto.UpsertResult;
+import study.datajpa.entity.Item;
+
+import java.util.Collection;
+
+public interface ItemRepositoryCustom {
+
+    //id가 직접 할당되는 item을 merge(select 후 insert/update) 없이 MERGE INTO jdbc batch로 저장한다.
+    //없는 id는 insert(createdDate = lastModifiedDate = 현재 시각), 있는 id는 lastModifiedDate만 바꾼다.
+    //같은 목록을 다시 넣어도 결과가 같으므로(idempotent) 재수입에 사용할 수 있다.
+    //영속성 컨텍스트를 거치지 않으므로 넘긴 item 객체는 바뀌지 않고, 이미 조회해 둔 item은 다시 조회해야 최신 값이 보인다.
+    UpsertResult upsertAll(Collection<Item> items);
+}
@@ -0,0 +1,74 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.UpsertResult;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+    //H2 MERGE INTO ... USING: 행마다 id로 찾아서 있으면 update, 없으면 insert를 sql 하나로 처리한다.
+    private static final String UPSERT_SQL = "merge into item t" +
+            " using (values (cast(? as varchar(255)), cast(? as timestamp))) s(id, ts) on t.id = s.id" +
+            " when matched then update set t.last_modified_date = s.ts" +
+            " when not matched then insert (id, created_date, last_modified_date) values (s.id, s.ts, s.ts)";
+
+    private final EntityManager em;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public ItemRepositoryImpl(EntityManager em, NamedParameterJdbcTemplate jdbcTemplate,
+                              @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
+        this.em = em;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    @Transactional
+    public UpsertResult upsertAll(Collection<Item> items) {
+        //같은 id가 여러번 있으면 한번만 저장한다. (insert/update 수를 정확히 세기 위해)
+        Map<String, Item> byId = new LinkedHashMap<>();
+        for (Item item : items) {
+            byId.putIfAbsent(item.getId(), item);
+        }
+        if (byId.isEmpty()) {
+            return new UpsertResult(0, 0);
+        }
+        //영속성 컨텍스트에 쌓인 변경을 먼저 내보내서 jdbc로 쓰는 순서와 어긋나지 않게 한다.
+        em.flush();
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<String> ids = new ArrayList<>(byId.keySet());
+        UpsertResult result = new UpsertResult(0, 0);
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            result = result.plus(upsertChunk(ids.subList(from, Math.min(from + batchSize, ids.size())), now));
+        }
+        return result;
+    }
+
+    //chunk마다 이미 있는 id를 한번 조회해서 insert/update 수를 나눈다. (MERGE의 update count는 둘 다 1)
+    private UpsertResult upsertChunk(List<String> ids, Timestamp now) {
+        Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(
+                "select id from item where id in (:ids)", Collections.singletonMap("ids", ids), String.class));
+
+        List<Object[]> batch = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            batch.add(new Object[]{id, now});
+        }
+        jdbcTemplate.getJdbcTemplate().batchUpdate(UPSERT_SQL, batch);
+        return new UpsertResult(ids.size() - existing.size(), existing.size());
+    }
+}
@@ -0,0 +1,87 @@
+package study.datajpa.repository;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//나이별 member 수와 team별 member 수/나이 합.
+//대부분의 나이(0 ~ DENSE_AGES-1)는 배열 칸 하나로 세고, 범위 밖의 나이만 map에 둔다.
+//모든 연산은 락 없이 원자적으로 더하고 빼므로 여러 스레드가 동시에 갱신해도 된다.
+final class MemberAggregates {
+    static final int DENSE_AGES = 256;
+
+    private final AtomicLongArray denseAgeCounts = new AtomicLongArray(DENSE_AGES);
+    private final ConcurrentMap<Integer, LongAdder> sparseAgeCounts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, TeamAggregate> teams = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+
+    //teamId가 null이면 나이별 집계에만 반영한다.
+    void add(Long teamId, int age, long delta) {
+        total.add(delta);
+        if (age >= 0 && age < DENSE_AGES) {
+            denseAgeCounts.addAndGet(age, delta);
+        } else {
+            sparseAgeCounts.computeIfAbsent(age, key -> new LongAdder()).add(delta);
+        }
+        if (teamId != null) {
+            TeamAggregate team = teams.computeIfAbsent(teamId, key -> new TeamAggregate());
+            team.count.add(delta);
+            team.ageSum.add(age * delta);
+        }
+    }
+
+    long countByAge(int age) {
+        if (age >= 0 && age < DENSE_AGES) {
+            return denseAgeCounts.get(age);
+        }
+        LongAdder count = sparseAgeCounts.get(age);
+        return count == null ? 0 : count.sum();
+    }
+
+    long total() {
+        return total.sum();
+    }
+
+    TeamAggregate team(Long teamId) {
+        return teams.get(teamId);
+    }
+
+    //0인 항목은 빼고 나이 순으로
+    Map<Integer, Long> ageCounts() {
+        Map<Integer, Long> result = new TreeMap<>();
+        for (int age = 0; age < DENSE_AGES; age++) {
+            long count = denseAgeCounts.get(age);
+            if (count != 0) {
+                result.put(age, count);
+            }
+        }
+        sparseAgeCounts.forEach((age, count) -> {
+            long sum = count.sum();
+            if (sum != 0) {
+                result.put(age, sum);
+            }
+        });
+        return result;
+    }
+
+    Map<Long, TeamAggregate> teams() {
+        return teams;
+    }
+
+    static final class TeamAggregate {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder ageSum = new LongAdder();
+
+        long count() {
+            return count.sum();
+        }
+
+        double averageAge() {
+            long members = count.sum();
+            return members == 0 ? 0.0 : (double) ageSum.sum() / members;
+        }
+    }
+}
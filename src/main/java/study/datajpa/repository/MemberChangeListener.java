@@ -0,0 +1,143 @@
+package study.datajpa.repository;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.Objects;
+
+//커밋된 member insert/update/delete를 메모리에 유지하는 값들에 반영한다.
+//  - MemberStatisticsRepository: 나이별/team별 집계
+//  - MemberSearchRepository: username 인덱스
+//롤백된 변경은 들어오지 않도록 post-commit 이벤트만 사용한다. 이벤트마다 상태 배열을 한번만 읽고 양쪽에 넘긴다.
+//lazy-initialization(fast-startup 프로필)에서도 시작할 때 만들어야 @PostConstruct에서 리스너가 등록된다.
+@Lazy(false)
+@Component
+public class MemberChangeListener implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+    private final EntityManagerFactory entityManagerFactory;
+    private final MemberStatisticsRepository statistics;
+    private final MemberSearchRepository memberSearchRepository;
+
+    public MemberChangeListener(EntityManagerFactory entityManagerFactory, MemberStatisticsRepository statistics,
+                                MemberSearchRepository memberSearchRepository) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.statistics = statistics;
+        this.memberSearchRepository = memberSearchRepository;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Object[] state = event.getState();
+        statistics.applyInsert(teamId(persister, state), age(persister, state));
+        memberSearchRepository.onInsert((Long) event.getId(), username(persister, state));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Long id = (Long) event.getId();
+        Object[] state = event.getState();
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            //이전 상태를 모르면(준영속 update 등) 집계는 차이를 계산할 수 없으므로 DB에서 다시 집계하고,
+            //인덱스에는 새 username만 넣는다. (이전 값은 다음 rebuild 때 정리된다)
+            statistics.reconcileAsync();
+            memberSearchRepository.onInsert(id, username(persister, state));
+            return;
+        }
+        statistics.applyUpdate(teamId(persister, oldState), age(persister, oldState),
+                teamId(persister, state), age(persister, state));
+        String oldUsername = username(persister, oldState);
+        String newUsername = username(persister, state);
+        if (!Objects.equals(oldUsername, newUsername)) {
+            memberSearchRepository.onRename(id, oldUsername, newUsername);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Object[] state = event.getDeletedState();
+        statistics.applyDelete(teamId(persister, state), age(persister, state));
+        memberSearchRepository.onDelete((Long) event.getId(), username(persister, state));
+    }
+
+    //커밋되지 않은(실패한) 변경은 반영하지 않으므로 할 일이 없다.
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return Member.class.isAssignableFrom(persister.getMappedClass());
+    }
+
+    //hibernate 5에서는 철자가 틀린 이전 메서드가 아직 abstract라서 구현은 남기고 새 메서드로 넘긴다.
+    @Override
+    @SuppressWarnings("deprecation")
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    private static int age(EntityPersister persister, Object[] state) {
+        return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+    }
+
+    private static String username(EntityPersister persister, Object[] state) {
+        return (String) state[persister.getEntityMetamodel().getPropertyIndex("username")];
+    }
+
+    //team이 프록시여도 초기화하지 않고 id만 꺼낸다.
+    private static Long teamId(EntityPersister persister, Object[] state) {
+        Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+}
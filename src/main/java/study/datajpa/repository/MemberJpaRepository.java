@@ -1,5 +1,7 @@
 package study.datajpa.repository;
 
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import study.datajpa.entity.Member;
 
@@ -9,9 +11,12 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
+@RequiredArgsConstructor
 public class MemberJpaRepository {
     @PersistenceContext
     private EntityManager em;
+    private final TotalCountCache totalCountCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Member save(Member member){
         em.persist(member);
@@ -41,24 +46,49 @@ public class MemberJpaRepository {
     }
 
     public List<Member> findPage(int offset,int limit,int age){
-        return em.createQuery( "select m from Member m where m.age = :age order by m.username desc ",Member.class)
+        return em.createQuery( "select m from Member m where m.age = :age order by m.username desc, m.id desc",Member.class)
                 .setParameter("age",age)
                 .setFirstResult(offset)
                 .setMaxResults(limit)
                 .getResultList();
     }
 
+    //findPage의 keyset 버전. 이전 페이지의 마지막 (username, id) 다음부터 limit개를 가져온다.
+    //첫 페이지는 findPage(0, limit, age)를 사용하면 같은 정렬이 보장된다.
+    public List<Member> findPageAfter(int age, String username, Long id, int limit){
+        return em.createQuery("select m from Member m where m.age = :age" +
+                        " and (m.username < :username or (m.username = :username and m.id < :id))" +
+                        " order by m.username desc, m.id desc", Member.class)
+                .setParameter("age", age)
+                .setParameter("username", username)
+                .setParameter("id", id)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
     public long totalCount(int age){
         return em.createQuery("select count(m) from Member m where m.age = :age",Long.class)
                 .setParameter("age",age)
                 .getSingleResult();
     }
 
+    //totalCount와 같지만 member.paging.count-staleness 동안은 캐시된 값을 돌려준다.
+    public long totalCountCached(int age){
+        return totalCountCache.get("member:age=" + age, () -> totalCount(age));
+    }
+
+    //2차 캐시의 Member, Team.members region은 hibernate가 무효화하지만
+    //영속성 컨텍스트는 그대로이므로 필요하면 호출한 쪽에서 em.clear()를 해야 한다.
+    //큰 테이블은 MemberBulkUpdateService로 chunk마다 커밋하면서 실행한다.
     public int bulkAgePlus(int age){
-        return em.createQuery("update Member m set m.age = m.age + 1"+
+        int updated = em.createQuery("update versioned Member m set m.age = m.age + 1"+
                 " where m.age >= :age")
                 .setParameter("age",age)
                 .executeUpdate();
+        //엔티티 리스너를 거치지 않으므로 member 통계는 커밋 후 다시 집계하게 한다.
+        //나이별 count 캐시도 커밋 후 TotalCountCache가 버린다.
+        eventPublisher.publishEvent(new BulkUpdateEvent(Member.class, "bulkAgePlus"));
+        return updated;
     }
 
 }
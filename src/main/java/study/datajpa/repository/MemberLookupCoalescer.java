@@ -0,0 +1,119 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.dto.CoalescingStatsDto;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+//같은 username 조회가 동시에 여러 스레드에서 들어오면(로그인 몰림 등) 먼저 들어온 호출 하나만 DB를 조회하고
+//나머지는 그 결과를 기다렸다가 나눠 가진다. (single-flight)
+//조회가 끝나면 바로 키를 지우므로 캐시가 아니다. 이미 끝난 조회 결과를 나중 호출이 재사용하지는 않는다.
+//결과는 호출마다 Member.copy()로 만든 준영속 복사본이라 서로의 영속성 컨텍스트와 엮이지 않는다.
+//조회 전용이다. 반환된 member를 수정해도 DB에는 반영되지 않는다.
+//트랜잭션 안에서 호출하면 합치지 않고 그 트랜잭션에서 직접 조회한다.
+//다른 트랜잭션의 결과를 나눠 가지면 아직 커밋되지 않았거나 롤백될 데이터를 보거나, 자기 트랜잭션에서 아직 flush 하지 않은
+//변경을 못 볼 수 있기 때문이다. 그래서 트랜잭션 밖의 읽기 호출끼리만 합쳐진다.
+@Component
+public class MemberLookupCoalescer {
+    private final Function<String, List<Member>> loader;
+    private final ConcurrentMap<String, CompletableFuture<List<Member>>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+
+    //team까지 한번에 가져와야 복사본에서 team을 쓸 수 있으므로 entity graph 조회를 사용한다.
+    @Autowired
+    public MemberLookupCoalescer(MemberRepository memberRepository) {
+        this(memberRepository::findEntityGraphByUsername);
+    }
+
+    MemberLookupCoalescer(Function<String, List<Member>> loader) {
+        this.loader = loader;
+    }
+
+    //MemberRepository.findByUsername
+    public List<Member> findByUsername(String username) {
+        return copies(lookup(username));
+    }
+
+    //MemberRepository.findOptionalByUsername. 두 건 이상이면 예외
+    public Optional<Member> findOptionalByUsername(String username) {
+        List<Member> members = lookup(username);
+        if (members.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, members.size());
+        }
+        return members.stream().findFirst().map(Member::copy);
+    }
+
+    //MemberRepository.findMemberByUsername. 없으면 null
+    public Member findMemberByUsername(String username) {
+        return findOptionalByUsername(username).orElse(null);
+    }
+
+    public CoalescingStatsDto stats() {
+        return new CoalescingStatsDto(queries.sum(), collapsed.sum(), inFlight.size());
+    }
+
+    private List<Member> lookup(String username) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            queries.increment();
+            return snapshot(loader.apply(username));
+        }
+        CompletableFuture<List<Member>> mine = new CompletableFuture<>();
+        CompletableFuture<List<Member>> existing = inFlight.putIfAbsent(username, mine);
+        if (existing != null) {
+            collapsed.increment();
+            return await(existing);
+        }
+
+        queries.increment();
+        try {
+            //호출한 스레드의 영속성 컨텍스트에 있는 엔티티를 그대로 넘기지 않도록 여기서 한번 복사해 둔다.
+            mine.complete(snapshot(loader.apply(username)));
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+        } finally {
+            inFlight.remove(username, mine);
+        }
+        return await(mine);
+    }
+
+    private static List<Member> await(CompletableFuture<List<Member>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static List<Member> snapshot(List<Member> members) {
+        return Collections.unmodifiableList(copies(members));
+    }
+
+    private static List<Member> copies(List<Member> members) {
+        List<Member> result = new ArrayList<>(members.size());
+        for (Member member : members) {
+            result.add(member.copy());
+        }
+        return result;
+    }
+}
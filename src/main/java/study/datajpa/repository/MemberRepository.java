@@ -1,35 +1,50 @@
 package study.datajpa.repository;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
 import javax.persistence.LockModeType;
 import javax.persistence.QueryHint;
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface MemberRepository extends JpaRepository<Member, Long>,MemberRepositoryCustom {
     List<Member> findByUsernameAndAgeGreaterThan(String username, int age);
 
+    //자주 호출되는 읽기 전용 조회는 쿼리 캐시를 사용한다.
+    //결과는 조회한 테이블(member, team)의 마지막 변경 시각과 비교되어, 그 이후에 쓰기가 있었으면 다시 조회한다.
+    //엔티티를 반환하는 쿼리는 id만 캐시되고 엔티티는 2차 캐시에서 가져온다.
+    @QueryHints(value = @QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Member> findTop3ByOrderByAgeAsc();
 
+    //username 검색을 like로 하는 방식. MemberSearchRepository(메모리 인덱스)와 비교하는 기준으로 남겨둔다.
+    //Containing은 like '%x%'라서 인덱스를 쓰지 못하고 member 전체를 읽는다.
+    List<Member> findTop10ByUsernameStartingWithOrderByUsernameAsc(String prefix);
+
+    List<Member> findTop10ByUsernameContainingOrderByUsernameAsc(String query);
+
     @Query("select m from Member m where m.username = :username and m.age = :age")
     List<Member> findUser(@Param("username") String username, @Param("age") int age);
 
+    @QueryHints(value = @QueryHint(name = "org.hibernate.cacheable", value = "true"))
     @Query("select m.username from Member m")
     List<String> findUsernameList();
 
+    @QueryHints(value = @QueryHint(name = "org.hibernate.cacheable", value = "true"))
     @Query("select new study.datajpa.dto.MemberDto(m.id,m.username,t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
-    @Query("select m from Member m where m.username in :names")
-    List<Member> findByNames(@Param("names") Collection<String> names);
-
     List<Member> findListByUsername(String username);
 
     Member findMemberByUsername(String username);
@@ -38,17 +53,51 @@ public interface MemberRepository extends JpaRepository<Member, Long>,MemberRepo
 
     //query를 counting 할때조차 조인되어 있는 team까지 불러오면서 카운팅하면 성능이
     //매우 느려질 수 있으므로, 나눠서 쿼리를 짠다.
-    @Query(value = "select m from Member m left join m.team t"
-            , countQuery = "select count(m) from Member m")
-    Page<Member> findByAge(int age, Pageable pageable);
+    @Query(value = "select m from Member m left join m.team t where m.age = :age"
+            , countQuery = "select count(m) from Member m where m.age = :age")
+    Page<Member> findByAge(@Param("age") int age, Pageable pageable);
+
+    //Slice는 count 쿼리 없이 size+1개를 조회해서 다음 페이지 여부만 알려준다.
+    Slice<Member> findSliceByAge(int age, Pageable pageable);
+
+    @Query("select m from Member m")
+    Slice<Member> findMemberSlice(Pageable pageable);
+
+    //목록 화면용 읽기 전용 조회. 엔티티 대신 dto로 바로 조회하므로 영속성 컨텍스트와 스냅샷이 생기지 않고
+    //team 이름은 left join 한번으로 가져온다.
+    //readOnly 트랜잭션 + flushMode MANUAL(예전 이름 NEVER) 힌트로 조회 전 flush도 하지 않는다.
+    @Transactional(readOnly = true)
+    @QueryHints(value = @QueryHint(name = "org.hibernate.flushMode", value = "MANUAL"))
+    @Query(value = "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t",
+            countQuery = "select count(m) from Member m")
+    Page<MemberDto> findMemberDtoPage(Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @QueryHints(value = @QueryHint(name = "org.hibernate.flushMode", value = "MANUAL"))
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t")
+    Slice<MemberDto> findMemberDtoSlice(Pageable pageable);
+
+    //dbExecutor 스레드에서 실행되는 비동기 조회. 서로 관계없는 조회(페이지 내용과 count 등)를
+    //동시에 시작하고 CompletableFuture로 결과를 조합한다. 트랜잭션은 dbExecutor 스레드에서 따로 열린다.
+    @Async("dbExecutor")
+    @Transactional(readOnly = true)
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t")
+    CompletableFuture<List<MemberDto>> findMemberDtoListAsync(Pageable pageable);
+
+    @Async("dbExecutor")
+    @Transactional(readOnly = true)
+    @Query("select count(m) from Member m")
+    CompletableFuture<Long> countMembersAsync();
 
 
     //modifying이 없으면 일반적인 조회에서 처럼 getSingleResult를 실행하게 되기때문에
     //modifying을 적어주어서 excuteUpdate()를 실행하게 해준다.
     //@Modifying(clearAutomatically = true)은
     // db를 update한후 자동으로 영속성 컨텍스트를 clear 해준다.
+    //2차 캐시는 hibernate가 bulk 연산 후 Member region과 Member를 담는 컬렉션 region(Team.members)을 비운다.
+    //테이블 전체를 한 트랜잭션으로 update 하므로 큰 테이블에서는 MemberBulkUpdateService(chunk마다 커밋)를 사용한다.
     @Modifying(clearAutomatically = true)
-    @Query("update Member m set m.age = m.age+1 where m.age >= :age")
+    @Query("update versioned Member m set m.age = m.age+1 where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
 
     List<Member> findByUsername(String username);
@@ -78,7 +127,35 @@ public interface MemberRepository extends JpaRepository<Member, Long>,MemberRepo
     @QueryHints(value = @QueryHint(name = "org.hibernate.readOnly", value = "true"))
     Member findReadOnlyByUsername(String username);
 
+    //Member에 @Version이 있으므로 WRITE(=OPTIMISTIC_FORCE_INCREMENT)는 커밋할 때 버전을 올리고 충돌을 검사한다.
     @Lock(LockModeType.WRITE)
     List<Member> findLockByUsername(String username);
 
+    //select ... for update. 트랜잭션이 끝날 때까지 다른 트랜잭션의 수정을 막는다.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m from Member m where m.id = :id")
+    Optional<Member> findForUpdateById(@Param("id") Long id);
+
+    //keyset(seek) 페이징: offset으로 앞의 행을 건너뛰지 않고 (username, id) 다음 행부터 읽는다.
+    //(username, id) 인덱스를 타기 때문에 10000번째 페이지도 첫 페이지와 비용이 같다.
+    //Pageable은 limit 용도로만 사용하고 정렬은 쿼리에 고정한다.
+    @Query("select m from Member m order by m.username asc, m.id asc")
+    List<Member> findKeysetFirst(Pageable pageable);
+
+    //username > a or (username = a and id > b)를 username >= a and (...)로 써서
+    //or 조건만 있을 때 인덱스를 못 타고 전체를 읽는 것을 막는다. (username 범위 조건으로 인덱스를 탄다)
+    @Query("select m from Member m" +
+            " where m.username >= :username and (m.username > :username or m.id > :id)" +
+            " order by m.username asc, m.id asc")
+    List<Member> findKeysetAfter(@Param("username") String username, @Param("id") Long id, Pageable pageable);
+
+    //after가 null이면 첫 페이지. size+1개를 조회해서 다음 페이지 여부를 판단한다.
+    default CursorPage<Member> findKeysetPage(MemberCursor after, int size) {
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Member> rows = after == null
+                ? findKeysetFirst(limit)
+                : findKeysetAfter(after.getUsername(), after.getId(), limit);
+        return CursorPage.of(rows, size, member -> MemberCursor.of(member).encode());
+    }
+
 }
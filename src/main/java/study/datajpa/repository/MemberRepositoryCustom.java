@@ -1,11 +1,49 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.datajpa.dto.ChunkUpdateResult;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 //spring data jpa와 연도시키기 위해서는 인터페이스 명은 상관없고
 //구현체 이름을 repository명+Impl을 꼭 맞춰줘야 한다.
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+
+    //names가 많으면 ChunkedQueryExecutor로 나눠서 조회한다. (중복 이름은 한번만 조회)
+    List<Member> findByNames(Collection<String> names);
+
+    //jdbc batch로 저장한다. chunk마다 영속성 컨텍스트를 clear 하므로
+    //호출 후에는 넘긴 엔티티와 기존에 영속 상태였던 엔티티가 모두 준영속 상태가 된다.
+    //member가 속한 team의 memberCount는 저장 후 한번에 다시 계산한다.
+    int bulkInsert(Iterable<Member> members);
+
+    //bulkInsert와 같지만 team의 memberCount는 다시 계산하지 않는다.
+    //여러 chunk를 동시에 저장할 때 chunk마다 같은 team 행을 update 하면서 서로 잠금을 기다리지 않도록
+    //호출한 쪽에서 전부 저장한 뒤 TeamRepository.refreshMemberCounts(ids)를 한번 호출한다.
+    int bulkInsertWithoutTeamCounts(Iterable<Member> members);
+
+    //전체 member를 fetchSize 단위로 DB에서 끌어오면서 한 건씩 흘려보낸다. (team은 fetch join)
+    //읽은 member는 바로 준영속 상태로 만들기 때문에 행 수와 상관없이 메모리 사용량이 일정하다.
+    //트랜잭션 안에서 사용하고, 다 쓰면 반드시 close 해야 커서가 반환된다.
+    Stream<Member> streamAll(int fetchSize);
+
+    //내용은 매번 조회하지만 total count는 TotalCountCache에 캐시된 값을 재사용한다.
+    //(member.paging.count-staleness 만큼 늦게 반영될 수 있다)
+    Page<Member> findAllWithCachedCount(Pageable pageable);
+
+    Page<Member> findByAgeWithCachedCount(int age, Pageable pageable);
+
+    //findMemberDtoPage의 cached count 버전
+    Page<MemberDto> findMemberDtoPageWithCachedCount(Pageable pageable);
+
+    //bulkAgePlus를 id 구간 하나만큼만 실행한다. afterId 다음부터 age >= :age인 member를 id 순서로 chunkSize개 찾고
+    //그 id 구간만 update 한다. 영속성 컨텍스트 전체를 clear 하지 않고 update된 member만 detach 한다.
+    //트랜잭션은 호출한 쪽에서 chunk마다 따로 연다. (MemberBulkUpdateService)
+    ChunkUpdateResult agePlusChunk(int age, long afterId, int chunkSize);
 }
@@ -1,19 +1,189 @@
 package study.datajpa.repository;
 
-import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.ChunkUpdateResult;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
-@RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
     private final EntityManager em;
+    private final TotalCountCache totalCountCache;
+    private final ChunkedQueryExecutor chunkedQueryExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    public MemberRepositoryImpl(EntityManager em, TotalCountCache totalCountCache,
+                                ChunkedQueryExecutor chunkedQueryExecutor,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
+        this.em = em;
+        this.totalCountCache = totalCountCache;
+        this.chunkedQueryExecutor = chunkedQueryExecutor;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
     @Override
     public List<Member> findMemberCustom(){
         return em.createQuery("select m from Member m")
                 .getResultList();
     }
 
+    @Override
+    public List<Member> findByNames(Collection<String> names) {
+        return chunkedQueryExecutor.query(names, chunk ->
+                em.createQuery("select m from Member m where m.username in :names", Member.class)
+                        .setParameter("names", chunk)
+                        .getResultList());
+    }
+
+    //changeTeam이 바꾼 memberCount는 team이 준영속 상태면 저장되지 않으므로
+    //저장이 끝난 뒤 관련 team의 memberCount를 member 테이블 기준으로 다시 맞춘다.
+    @Override
+    @Transactional
+    public int bulkInsert(Iterable<Member> members) {
+        Set<Long> teamIds = new HashSet<>();
+        for (Member member : members) {
+            if (member.getTeam() != null && member.getTeam().getId() != null) {
+                teamIds.add(member.getTeam().getId());
+            }
+        }
+        int count = BatchInsertSupport.persistInChunks(em, members, batchSize);
+        if (!teamIds.isEmpty()) {
+            em.createQuery("update versioned Team t" +
+                            " set t.memberCount = (select count(m) from Member m where m.team = t)" +
+                            " where t.id in :ids")
+                    .setParameter("ids", teamIds)
+                    .executeUpdate();
+        }
+        return count;
+    }
+
+    @Override
+    @Transactional
+    public int bulkInsertWithoutTeamCounts(Iterable<Member> members) {
+        return BatchInsertSupport.persistInChunks(em, members, batchSize);
+    }
+
+    //readOnly 힌트로 스냅샷을 만들지 않고, 읽은 member와 fetch join된 team은 바로 detach 해서 영속성 컨텍스트에 쌓이지 않게 한다.
+    //같은 team의 다음 member를 읽으면 team은 다시 만들어지므로 detach 해도 된다.
+    @Override
+    public Stream<Member> streamAll(int fetchSize) {
+        return em.createQuery("select m from Member m left join fetch m.team order by m.id", Member.class)
+                .setHint("org.hibernate.fetchSize", fetchSize)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream()
+                .peek(this::detachWithTeam);
+    }
+
+    private void detachWithTeam(Member member) {
+        em.detach(member);
+        if (member.getTeam() != null) {
+            em.detach(member.getTeam());
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Member> findAllWithCachedCount(Pageable pageable) {
+        TypedQuery<Member> query = em.createQuery(
+                QueryUtils.applySorting("select m from Member m", pageable.getSort(), "m"), Member.class);
+        return PageableExecutionUtils.getPage(page(query, pageable), pageable,
+                () -> totalCountCache.get("member", () ->
+                        em.createQuery("select count(m) from Member m", Long.class)
+                                .getSingleResult()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Member> findByAgeWithCachedCount(int age, Pageable pageable) {
+        TypedQuery<Member> query = em.createQuery(
+                        QueryUtils.applySorting("select m from Member m where m.age = :age", pageable.getSort(), "m"),
+                        Member.class)
+                .setParameter("age", age);
+        return PageableExecutionUtils.getPage(page(query, pageable), pageable,
+                () -> totalCountCache.get("member:age=" + age, () ->
+                        em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                                .setParameter("age", age)
+                                .getSingleResult()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<MemberDto> findMemberDtoPageWithCachedCount(Pageable pageable) {
+        TypedQuery<MemberDto> query = em.createQuery(QueryUtils.applySorting(
+                        "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+                                " from Member m left join m.team t", pageable.getSort(), "m"), MemberDto.class)
+                .setHint("org.hibernate.flushMode", "MANUAL");
+        return PageableExecutionUtils.getPage(page(query, pageable), pageable,
+                () -> totalCountCache.get("member", () ->
+                        em.createQuery("select count(m) from Member m", Long.class)
+                                .getSingleResult()));
+    }
+
+    @Override
+    public ChunkUpdateResult agePlusChunk(int age, long afterId, int chunkSize) {
+        List<Long> ids = em.createQuery("select m.id from Member m" +
+                        " where m.age >= :age and m.id > :afterId order by m.id asc", Long.class)
+                .setParameter("age", age)
+                .setParameter("afterId", afterId)
+                .setMaxResults(chunkSize)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return new ChunkUpdateResult(afterId, 0, 0);
+        }
+        long firstId = ids.get(0);
+        long lastId = ids.get(ids.size() - 1);
+
+        //in 목록 대신 id 구간으로 update 해서 pk 인덱스 범위만 잠근다.
+        //select 이후에 나이가 바뀐 행이 있을 수 있으므로 age 조건도 다시 건다.
+        int updated = em.createQuery("update versioned Member m set m.age = m.age + 1" +
+                        " where m.id between :firstId and :lastId and m.age >= :age")
+                .setParameter("firstId", firstId)
+                .setParameter("lastId", lastId)
+                .setParameter("age", age)
+                .executeUpdate();
+
+        detachManaged(ids);
+        //나이별 count 캐시는 커밋 후 TotalCountCache가 이 이벤트를 받고 버린다.
+        eventPublisher.publishEvent(new BulkUpdateEvent(Member.class, "agePlusChunk"));
+        return new ChunkUpdateResult(lastId, ids.size(), updated);
+    }
+
+    //영속성 컨텍스트에 이미 올라와 있는 member만 찾아서 detach 한다. (없는 id는 조회하지 않는다)
+    private void detachManaged(List<Long> ids) {
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+        for (Long id : ids) {
+            Object managed = session.getPersistenceContext().getEntity(session.generateEntityKey(id, persister));
+            if (managed != null) {
+                em.detach(managed);
+            }
+        }
+    }
+
+    private <T> List<T> page(TypedQuery<T> query, Pageable pageable) {
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return query.getResultList();
+    }
 
 }
@@ -0,0 +1,169 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+//username prefix/부분 문자열 검색. like '%x%'로 member 테이블을 읽는 대신 메모리의 UsernameIndex에서 id를 찾고
+//그 id들만 findAllById 한번으로 가져온다.
+//인덱스는 애플리케이션이 뜬 뒤 백그라운드로 만들고(그 전에는 빈 결과), 이후에는 MemberChangeListener가
+//커밋된 insert/update/delete를 반영한다. bulk delete 후에는 다시 만든다.
+@Slf4j
+@Component
+public class MemberSearchRepository {
+    private static final int FETCH_SIZE = 1000;
+
+    private final EntityManager em;
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Executor dbExecutor;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    //다시 만드는 중에 들어온 요청. 지금 만드는 인덱스가 끝나면 한번 더 만든다.
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private volatile UsernameIndex index = new UsernameIndex();
+    //다시 만드는 중인 인덱스. 만드는 동안 들어온 변경은 양쪽에 모두 반영한다.
+    private volatile UsernameIndex building;
+    private volatile boolean ready;
+
+    public MemberSearchRepository(EntityManager em, MemberRepository memberRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Qualifier("dbExecutor") Executor dbExecutor) {
+        this.em = em;
+        this.memberRepository = memberRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.dbExecutor = dbExecutor;
+    }
+
+    public List<Long> findIdsByPrefix(String prefix, int limit) {
+        return index.findByPrefix(prefix, limit);
+    }
+
+    public List<Long> findIdsBySubstring(String query, int limit) {
+        return index.findBySubstring(query, limit);
+    }
+
+    //결과는 인덱스 순서(username, id)를 유지한다.
+    public List<Member> searchByPrefix(String prefix, int limit) {
+        return hydrate(findIdsByPrefix(prefix, limit));
+    }
+
+    public List<Member> searchBySubstring(String query, int limit) {
+        return hydrate(findIdsBySubstring(query, limit));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    void onInsert(Long id, String username) {
+        index.add(id, username);
+        UsernameIndex next = building;
+        if (next != null) {
+            next.add(id, username);
+        }
+    }
+
+    void onDelete(Long id, String username) {
+        index.remove(id, username);
+        UsernameIndex next = building;
+        if (next != null) {
+            next.remove(id, username);
+        }
+    }
+
+    void onRename(Long id, String oldUsername, String newUsername) {
+        onDelete(id, oldUsername);
+        onInsert(id, newUsername);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuildAsync();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkUpdate(BulkUpdateEvent event) {
+        if (Member.class.isAssignableFrom(event.getDomainType())
+                && event.getOperation().toLowerCase().contains("delete")) {
+            rebuildAsync();
+        }
+    }
+
+    public void rebuildAsync() {
+        dbExecutor.execute(this::rebuild);
+    }
+
+    //이미 만드는 중이면 요청만 남기고 돌아간다. 만들던 스레드가 끝난 뒤 한번 더 만든다.
+    //(만드는 중에 bulk delete가 커밋되면 이미 읽은 행이 인덱스에 남을 수 있으므로 건너뛰면 안 된다)
+    public void rebuild() {
+        pending.set(true);
+        while (pending.get() && rebuilding.compareAndSet(false, true)) {
+            try {
+                pending.set(false);
+                rebuildOnce();
+            } finally {
+                rebuilding.set(false);
+            }
+        }
+    }
+
+    //id, username만 fetchSize 단위로 읽어서 새 인덱스를 만들고 다 만들어지면 바꿔 끼운다.
+    private void rebuildOnce() {
+        UsernameIndex next = new UsernameIndex();
+        building = next;
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = em.createQuery("select m.id, m.username from Member m", Object[].class)
+                        .setHint("org.hibernate.fetchSize", FETCH_SIZE)
+                        .getResultStream()) {
+                    rows.forEach(row -> next.add((Long) row[0], (String) row[1]));
+                }
+            });
+            index = next;
+            ready = true;
+        } catch (RuntimeException e) {
+            log.warn("username index rebuild failed", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    private List<Member> hydrate(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Member> byId = new HashMap<>();
+        for (Member member : memberRepository.findAllById(ids)) {
+            byId.put(member.getId(), member);
+        }
+        List<Member> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Member member = byId.get(id);
+            if (member != null) {
+                result.add(member);
+            }
+        }
+        return result;
+    }
+}
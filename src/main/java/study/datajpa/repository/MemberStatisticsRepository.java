@@ -0,0 +1,168 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.TeamStatsDto;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//"나이별 member 수", "team별 member 수", "team별 평균 나이"를 member 테이블을 읽지 않고 메모리의 집계로 바로 돌려준다.
+//member insert/update/delete는 커밋된 뒤 MemberChangeListener가 집계에 더하고 뺀다.
+//엔티티 이벤트가 없는 bulk 연산(bulkAgePlus 등)이나 주기적인 점검 때는 DB에서 다시 집계해서 통째로 바꾼다.
+//다시 집계하는 동안 들어온 변경은 새 집계에도 더하므로 바꿔 끼울 때 빠지지 않는다.
+//집계 쿼리 직전에 커밋되고 리스너가 늦게 불린 변경은 두번 들어갈 수 있지만 다음 reconcile에서 맞춰진다. (근사값)
+//lazy-initialization(fast-startup 프로필)에서는 만들어진 빈의 @Scheduled만 등록되므로 시작할 때 만든다.
+@Slf4j
+@Lazy(false)
+@Component
+public class MemberStatisticsRepository {
+    private final EntityManager em;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Executor dbExecutor;
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+    //다시 집계하는 중에 들어온 요청. 지금 하는 집계가 끝나면 한번 더 한다.
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private volatile MemberAggregates aggregates = new MemberAggregates();
+    //다시 집계 중인 집계. 집계하는 동안 들어온 변경은 양쪽에 모두 반영한다.
+    private volatile MemberAggregates building;
+    private volatile LocalDateTime reconciledAt;
+
+    public MemberStatisticsRepository(EntityManager em, PlatformTransactionManager transactionManager,
+                                      @Qualifier("dbExecutor") Executor dbExecutor) {
+        this.em = em;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.dbExecutor = dbExecutor;
+    }
+
+    public long countByAge(int age) {
+        return aggregates.countByAge(age);
+    }
+
+    public long totalCount() {
+        return aggregates.total();
+    }
+
+    public Map<Integer, Long> countsByAge() {
+        return aggregates.ageCounts();
+    }
+
+    public TeamStatsDto teamStats(Long teamId) {
+        MemberAggregates.TeamAggregate team = aggregates.team(teamId);
+        return team == null ? new TeamStatsDto(teamId, 0, 0.0) : new TeamStatsDto(teamId, team.count(), team.averageAge());
+    }
+
+    public List<TeamStatsDto> allTeamStats() {
+        List<TeamStatsDto> result = new ArrayList<>();
+        aggregates.teams().forEach((teamId, team) -> {
+            if (team.count() != 0) {
+                result.add(new TeamStatsDto(teamId, team.count(), team.averageAge()));
+            }
+        });
+        return result;
+    }
+
+    //마지막으로 DB와 맞춘 집계를 읽기 시작한 시각. 이 시각 전에 커밋된 변경은 모두 반영되어 있다.
+    //null이면 아직 한번도 맞추지 않았다.
+    public LocalDateTime getReconciledAt() {
+        return reconciledAt;
+    }
+
+    void applyInsert(Long teamId, int age) {
+        add(teamId, age, 1);
+    }
+
+    void applyDelete(Long teamId, int age) {
+        add(teamId, age, -1);
+    }
+
+    void applyUpdate(Long oldTeamId, int oldAge, Long newTeamId, int newAge) {
+        add(oldTeamId, oldAge, -1);
+        add(newTeamId, newAge, 1);
+    }
+
+    private void add(Long teamId, int age, long delta) {
+        aggregates.add(teamId, age, delta);
+        MemberAggregates next = building;
+        if (next != null) {
+            next.add(teamId, age, delta);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcileAsync();
+    }
+
+    //bulk 연산은 커밋된 뒤에(트랜잭션 밖이면 바로) 다시 집계한다.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkUpdate(BulkUpdateEvent event) {
+        if (Member.class.isAssignableFrom(event.getDomainType())) {
+            reconcileAsync();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${member.statistics.reconcile-interval:PT5M}",
+            initialDelayString = "${member.statistics.reconcile-interval:PT5M}")
+    public void reconcilePeriodically() {
+        reconcile();
+    }
+
+    public void reconcileAsync() {
+        dbExecutor.execute(this::reconcile);
+    }
+
+    //이미 다시 집계하는 중이면 요청만 남기고 돌아간다. 집계하던 스레드가 끝난 뒤 한번 더 집계하므로
+    //요청 이후의 변경이 빠지지 않는다. (요청이 여러번 와도 한번으로 합쳐진다)
+    public void reconcile() {
+        pending.set(true);
+        while (pending.get() && reconciling.compareAndSet(false, true)) {
+            try {
+                pending.set(false);
+                reconcileOnce();
+            } finally {
+                reconciling.set(false);
+            }
+        }
+    }
+
+    private void reconcileOnce() {
+        LocalDateTime started = LocalDateTime.now();
+        MemberAggregates fresh = new MemberAggregates();
+        building = fresh;
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> load(fresh));
+            aggregates = fresh;
+            reconciledAt = started;
+        } catch (RuntimeException e) {
+            log.warn("member statistics reconcile failed", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    //age와 team으로 묶은 행 수만 읽는다. (member 행 자체는 가져오지 않는다)
+    private void load(MemberAggregates fresh) {
+        List<Object[]> rows = em.createQuery("select t.id, m.age, count(m) from Member m left join m.team t" +
+                        " group by t.id, m.age", Object[].class)
+                .getResultList();
+        for (Object[] row : rows) {
+            fresh.add((Long) row[0], (Integer) row[1], (Long) row[2]);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package study.datajpa.repository;
+
+import org.hibernate.HibernateException;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PersistEvent;
+import org.hibernate.event.spi.PersistEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+
+//new Member(.., team)의 team이 준영속이면(앞선 트랜잭션에서 저장한 team 등) 생성자에서 올린 memberCount가
+//저장되지 않는다. member를 persist 하기 전에 team을 지금 영속성 컨텍스트의 team으로 바꿔서
+//영속 team의 memberCount가 올라가게 한다. (준영속 team의 값은 원래대로 돌아간다)
+//lazy-initialization(fast-startup 프로필)에서도 시작할 때 만들어야 @PostConstruct에서 리스너가 등록된다.
+@Lazy(false)
+@Component
+public class MemberTeamPersistListener implements PersistEventListener {
+    private final EntityManagerFactory entityManagerFactory;
+
+    public MemberTeamPersistListener(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        //기본 persist 리스너가 insert 하기 전에 바꿔야 하므로 앞에 넣는다.
+        registry.prependListeners(EventType.PERSIST, this);
+    }
+
+    @Override
+    public void onPersist(PersistEvent event) throws HibernateException {
+        attachTeam(event);
+    }
+
+    @Override
+    public void onPersist(PersistEvent event, Map createdAlready) throws HibernateException {
+        attachTeam(event);
+    }
+
+    private static void attachTeam(PersistEvent event) {
+        if (!(event.getObject() instanceof Member)) {
+            return;
+        }
+        Member member = (Member) event.getObject();
+        Team team = member.getTeam();
+        //프록시는 memberCount를 올리지 않은 참조(withTeamReference)이고, id가 없는 team은 아직 저장 전이다.
+        if (team == null || team instanceof HibernateProxy || team.getId() == null) {
+            return;
+        }
+        EventSource session = event.getSession();
+        if (session.contains(team)) {
+            return;
+        }
+        Team managed = session.get(Team.class, team.getId());
+        if (managed != null) {
+            member.changeTeam(managed);
+        }
+    }
+}
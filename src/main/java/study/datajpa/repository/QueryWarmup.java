@@ -0,0 +1,141 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.query.spi.HQLQueryPlan;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+import study.datajpa.metrics.StartupTimings;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+//애플리케이션이 준비된 뒤 백그라운드(dbExecutor)에서
+//  1. 아직 만들어지지 않은 repository를 만들고 (lazy bootstrap이면 첫 요청이 하던 일.
+//     deferred는 준비되기 전에 모든 repository를 만들므로 할 일이 없다)
+//  2. 모든 @Query(jpql)와 countQuery를 hibernate 쿼리 plan 캐시에 컴파일해 두고
+//  3. 번역된 sql을 커넥션 하나에서 prepare만 해서 DB가 sql을 한번 파싱하게 한다. (실행은 하지 않는다)
+//첫 요청이 jpql 파싱과 repository 생성 비용을 내지 않게 하기 위한 것으로, 실패해도 요청 처리에는 영향이 없다.
+//hibernate와 hikari는 PreparedStatement를 커넥션 사이에 캐시하지 않으므로 3번의 효과는 DB가 plan을 공유하는 경우로 한정된다.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "datajpa.startup.warmup.enabled", havingValue = "true")
+public class QueryWarmup {
+    private final ListableBeanFactory beanFactory;
+    private final EntityManagerFactory entityManagerFactory;
+    private final DataSource dataSource;
+    private final Executor dbExecutor;
+    private final StartupTimings startupTimings;
+
+    public QueryWarmup(ListableBeanFactory beanFactory, EntityManagerFactory entityManagerFactory,
+                       DataSource dataSource, @Qualifier("dbExecutor") Executor dbExecutor,
+                       StartupTimings startupTimings) {
+        this.beanFactory = beanFactory;
+        this.entityManagerFactory = entityManagerFactory;
+        this.dataSource = dataSource;
+        this.dbExecutor = dbExecutor;
+        this.startupTimings = startupTimings;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpAfterReady() {
+        dbExecutor.execute(this::warmUp);
+    }
+
+    //컴파일한 jpql 수를 반환한다.
+    public int warmUp() {
+        long started = System.nanoTime();
+        List<String> sqls = new ArrayList<>();
+        int compiled = 0;
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            for (String jpql : jpqlQueries()) {
+                try {
+                    //createQuery가 jpql을 컴파일해서 plan 캐시에 넣는다. (실행은 하지 않는다)
+                    em.createQuery(jpql);
+                    compiled++;
+                } catch (RuntimeException e) {
+                    log.debug("query warm-up skipped {}", jpql, e);
+                    continue;
+                }
+                sqls.addAll(translatedSql(jpql));
+            }
+        } finally {
+            em.close();
+        }
+        prepare(sqls);
+        startupTimings.recordBackground("query-warmup", (System.nanoTime() - started) / 1_000_000);
+        log.info("query warm-up compiled {} jpql queries and prepared {} statements", compiled, sqls.size());
+        return compiled;
+    }
+
+    //Repositories는 모든 repository 빈을 가져오므로 아직 만들어지지 않은 repository도 여기서 만들어진다.
+    private Set<String> jpqlQueries() {
+        Set<String> queries = new LinkedHashSet<>();
+        Repositories repositories = new Repositories(beanFactory);
+        for (Class<?> domainType : repositories) {
+            RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+            for (Method method : information.getQueryMethods()) {
+                Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+                if (query == null || query.nativeQuery()) {
+                    continue;
+                }
+                if (!query.value().isEmpty()) {
+                    queries.add(query.value());
+                }
+                if (!query.countQuery().isEmpty()) {
+                    queries.add(query.countQuery());
+                }
+            }
+        }
+        return queries;
+    }
+
+    //hibernate 5에는 jpql이 번역된 sql을 얻는 공개 API가 없어서 방금 컴파일한 plan을 plan 캐시에서 꺼낸다. (캐시 hit)
+    //plan 캐시 접근은 hibernate 6에서 바뀌므로 deprecation은 이 메서드에서만 허용하고, 실패하면 prepare만 건너뛴다.
+    @SuppressWarnings("deprecation")
+    private List<String> translatedSql(String jpql) {
+        try {
+            HQLQueryPlan plan = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getQueryPlanCache()
+                    .getHQLQueryPlan(jpql, false, Collections.emptyMap());
+            return Arrays.asList(plan.getSqlStrings());
+        } catch (RuntimeException e) {
+            log.debug("statement warm-up skipped {}", jpql, e);
+            return Collections.emptyList();
+        }
+    }
+
+    private void prepare(List<String> sqls) {
+        try (Connection connection = dataSource.getConnection()) {
+            for (String sql : sqls) {
+                try (PreparedStatement ignored = connection.prepareStatement(sql)) {
+                    //prepare만 하고 닫는다.
+                } catch (SQLException e) {
+                    log.debug("statement warm-up skipped {}", sql, e);
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("statement warm-up failed", e);
+        }
+    }
+}
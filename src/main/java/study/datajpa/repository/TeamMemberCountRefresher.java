@@ -0,0 +1,52 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+//member bulk delete(deleteAllInBatch 등)는 @PreRemove를 거치지 않으므로 끝난 직후 team.memberCount를 다시 맞춘다.
+//호출한 쪽에 트랜잭션이 있으면 그 트랜잭션 안에서 같이 반영된다.
+//memberCount가 실제와 달라진 team만 update 하므로 영향이 없는 team의 version은 올라가지 않고,
+//호출한 쪽의 영속성 컨텍스트도 비우지 않는다. (이미 들고 있던 team은 새 값으로 다시 읽는다)
+@Component
+@RequiredArgsConstructor
+public class TeamMemberCountRefresher {
+    private final TeamRepository teamRepository;
+    private final EntityManager em;
+
+    @EventListener
+    public void onBulkUpdate(BulkUpdateEvent event) {
+        if (Member.class.isAssignableFrom(event.getDomainType())
+                && event.getOperation().toLowerCase().contains("delete")) {
+            List<Long> teamIds = teamRepository.findIdsWithStaleMemberCount();
+            if (teamIds.isEmpty()) {
+                return;
+            }
+            teamRepository.refreshMemberCounts(teamIds);
+            refreshManagedTeams(teamIds);
+        }
+    }
+
+    //트랜잭션 밖이면 들고 있는 영속성 컨텍스트가 없다.
+    private void refreshManagedTeams(List<Long> teamIds) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Team.class);
+        for (Long teamId : teamIds) {
+            Object managed = session.getPersistenceContext().getEntity(session.generateEntityKey(teamId, persister));
+            if (managed != null) {
+                em.refresh(managed);
+            }
+        }
+    }
+}
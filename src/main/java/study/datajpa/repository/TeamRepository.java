@@ -1,8 +1,54 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.TeamDto;
 import study.datajpa.entity.Team;
 
-public interface TeamRepository extends JpaRepository<Team,Long> {
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+public interface TeamRepository extends JpaRepository<Team,Long>, TeamRepositoryCustom {
+
+    @Async("dbExecutor")
+    @Transactional(readOnly = true)
+    @Query("select count(t) from Team t")
+    CompletableFuture<Long> countTeamsAsync();
+
+    //이름이 같은 team이 여러 개면 모두 반환된다.
+    List<Team> findByNameIn(Collection<String> names);
+
+    //team 목록과 크기. member 행이나 members 컬렉션을 읽지 않고 memberCount 컬럼만 읽는다.
+    @Transactional(readOnly = true)
+    @QueryHints(value = @QueryHint(name = "org.hibernate.flushMode", value = "MANUAL"))
+    @Query(value = "select new study.datajpa.dto.TeamDto(t.id, t.name, t.memberCount) from Team t",
+            countQuery = "select count(t) from Team t")
+    Page<TeamDto> findTeamDtoPage(Pageable pageable);
+
+    //bulk 연산(deleteAllInBatch 등)으로 memberCount가 틀어졌을 때 member 테이블 기준으로 다시 맞춘다.
+    //버전도 올리므로 이전 값을 들고 있던 트랜잭션은 커밋할 때 충돌한다.
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update versioned Team t set t.memberCount = (select count(m) from Member m where m.team = t)")
+    int refreshMemberCounts();
+
+    //영속성 컨텍스트는 비우지 않는다. 이미 들고 있던 team의 memberCount는 호출한 쪽에서 다시 읽어야 한다.
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("update versioned Team t set t.memberCount = (select count(m) from Member m where m.team = t)" +
+            " where t.id in :ids")
+    int refreshMemberCounts(@Param("ids") Collection<Long> ids);
+
+    //memberCount가 실제 member 수와 다른 team. (bulk delete로 member가 빠진 team)
+    @Query("select t.id from Team t where t.memberCount <> (select count(m) from Member m where m.team = t)")
+    List<Long> findIdsWithStaleMemberCount();
 }
@@ -0,0 +1,15 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Team;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface TeamRepositoryCustom {
+
+    //MemberRepositoryCustom.bulkInsert와 같은 방식으로 jdbc batch 저장
+    int bulkInsert(Iterable<Team> teams);
+
+    //team과 members를 team 수와 상관없이 쿼리 한번으로 채운다. (id 순서)
+    List<Team> loadWithMembers(Collection<Long> ids);
+}
@@ -0,0 +1,43 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+public class TeamRepositoryImpl implements TeamRepositoryCustom {
+    private final EntityManager em;
+    private final int batchSize;
+
+    public TeamRepositoryImpl(EntityManager em,
+                              @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize) {
+        this.em = em;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    @Transactional
+    public int bulkInsert(Iterable<Team> teams) {
+        return BatchInsertSupport.persistInChunks(em, teams, batchSize);
+    }
+
+    //컬렉션 fetch join은 team 행이 member 수만큼 늘어나므로 distinct로 중복을 제거한다.
+    //passDistinctThrough=false: distinct는 애플리케이션에서만 적용하고 sql에는 넣지 않는다.
+    @Override
+    @Transactional(readOnly = true)
+    public List<Team> loadWithMembers(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return em.createQuery("select distinct t from Team t left join fetch t.members" +
+                        " where t.id in :ids order by t.id", Team.class)
+                .setParameter("ids", new LinkedHashSet<>(ids))
+                .setHint("hibernate.query.passDistinctThrough", false)
+                .getResultList();
+    }
+}
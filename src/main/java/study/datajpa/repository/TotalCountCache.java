@@ -0,0 +1,61 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import study.datajpa.entity.Member;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+//페이징의 count 쿼리 결과를 조건(key)별로 staleness 동안 재사용한다.
+//count가 조금 늦게 반영되어도 되는 목록 화면용. 정확한 값이 필요하면 일반 Page 조회를 사용한다.
+@Component
+public class TotalCountCache {
+    private final ConcurrentHashMap<String, CachedCount> counts = new ConcurrentHashMap<>();
+    private final long stalenessNanos;
+
+    public TotalCountCache(@Value("${member.paging.count-staleness:30s}") Duration staleness) {
+        this.stalenessNanos = staleness.toNanos();
+    }
+
+    public long get(String key, LongSupplier countQuery) {
+        long now = System.nanoTime();
+        CachedCount cached = counts.get(key);
+        if (cached != null && now - cached.loadedAt < stalenessNanos) {
+            return cached.count;
+        }
+        long count = countQuery.getAsLong();
+        counts.put(key, new CachedCount(count, now));
+        return count;
+    }
+
+    public void invalidate(String key) {
+        counts.remove(key);
+    }
+
+    public void invalidateAll() {
+        counts.clear();
+    }
+
+    //member bulk update/delete가 커밋된 뒤에 버린다.
+    //커밋 전에 버리면 그 사이에 다른 스레드가 아직 바뀌지 않은 count를 다시 캐시할 수 있다.
+    //spring data repository의 @Modifying 메서드와 MemberJpaRepository.bulkAgePlus 모두 BulkUpdateEvent를 발행한다.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkUpdate(BulkUpdateEvent event) {
+        if (Member.class.isAssignableFrom(event.getDomainType())) {
+            invalidateAll();
+        }
+    }
+
+    private static final class CachedCount {
+        private final long count;
+        private final long loadedAt;
+
+        private CachedCount(long count, long loadedAt) {
+            this.count = count;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package study.datajpa.repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//username -> member id 검색용 메모리 인덱스. 대소문자는 구분하지 않는다.
+//entries: (username, id) 순서로 정렬된 전체 목록. prefix 검색은 이 목록의 구간만 읽는다.
+//trigrams: username에 들어있는 3글자 조각마다 그 조각을 가진 (username, id) 목록.
+//부분 문자열 검색은 검색어의 조각 중 가장 적은 목록 하나만 정렬 순서대로 읽으면서 실제로 포함하는지 확인하므로
+//limit개를 찾으면 바로 멈춘다.
+//모든 구조가 concurrent 컬렉션이라 검색하면서 동시에 추가/삭제해도 된다.
+final class UsernameIndex {
+    static final int GRAM = 3;
+
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparing((Entry e) -> e.username).thenComparingLong(e -> e.id);
+
+    private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>(ORDER);
+    private final ConcurrentMap<String, Posting> trigrams = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    void add(Long id, String username) {
+        if (id == null || username == null) {
+            return;
+        }
+        Entry entry = new Entry(normalize(username), id);
+        if (!entries.add(entry)) {
+            return;
+        }
+        size.incrementAndGet();
+        for (String gram : grams(entry.username)) {
+            Posting posting = trigrams.computeIfAbsent(gram, key -> new Posting());
+            if (posting.entries.add(entry)) {
+                posting.size.incrementAndGet();
+            }
+        }
+    }
+
+    void remove(Long id, String username) {
+        if (id == null || username == null) {
+            return;
+        }
+        Entry entry = new Entry(normalize(username), id);
+        if (!entries.remove(entry)) {
+            return;
+        }
+        size.decrementAndGet();
+        for (String gram : grams(entry.username)) {
+            Posting posting = trigrams.get(gram);
+            if (posting != null && posting.entries.remove(entry)) {
+                posting.size.decrementAndGet();
+            }
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    //username 순서로 최대 limit개
+    List<Long> findByPrefix(String prefix, int limit) {
+        String from = normalize(prefix);
+        List<Long> result = new ArrayList<>(Math.min(limit, 64));
+        for (Entry entry : entries.tailSet(new Entry(from, Long.MIN_VALUE), true)) {
+            if (!entry.username.startsWith(from) || result.size() >= limit) {
+                break;
+            }
+            result.add(entry.id);
+        }
+        return result;
+    }
+
+    //username 순서로 최대 limit개. 검색어가 3글자보다 짧으면 조각 목록을 쓸 수 없어서 전체 목록을 차례로 확인한다.
+    List<Long> findBySubstring(String query, int limit) {
+        String needle = normalize(query);
+        NavigableSet<Entry> candidates = needle.length() < GRAM ? entries : rarestPosting(needle);
+        List<Long> result = new ArrayList<>(Math.min(limit, 64));
+        if (candidates == null) {
+            return result;
+        }
+        for (Entry entry : candidates) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (entry.username.contains(needle)) {
+                result.add(entry.id);
+            }
+        }
+        return result;
+    }
+
+    //검색어의 조각 중 하나라도 없으면 결과가 없으므로 null
+    private NavigableSet<Entry> rarestPosting(String needle) {
+        Posting rarest = null;
+        for (String gram : grams(needle)) {
+            Posting posting = trigrams.get(gram);
+            if (posting == null || posting.size.get() == 0) {
+                return null;
+            }
+            if (rarest == null || posting.size.get() < rarest.size.get()) {
+                rarest = posting;
+            }
+        }
+        return rarest == null ? null : rarest.entries;
+    }
+
+    private static List<String> grams(String value) {
+        List<String> grams = new ArrayList<>(Math.max(0, value.length() - GRAM + 1));
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            String gram = value.substring(i, i + GRAM);
+            if (!grams.contains(gram)) {
+                grams.add(gram);
+            }
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+        private final String username;
+        private final long id;
+
+        private Entry(String username, long id) {
+            this.username = username;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry other = (Entry) o;
+            return id == other.id && username.equals(other.username);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(username, id);
+        }
+    }
+
+    //ConcurrentSkipListSet.size()는 전체를 세므로 크기는 따로 유지한다.
+    private static final class Posting {
+        private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>(ORDER);
+        private final AtomicInteger size = new AtomicInteger();
+    }
+}
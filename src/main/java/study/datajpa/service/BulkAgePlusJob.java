@@ -0,0 +1,57 @@
+package study.datajpa.service;
+
+import lombok.Getter;
+import study.datajpa.dto.ChunkUpdateResult;
+
+import java.time.LocalDateTime;
+
+//chunk 단위 bulkAgePlus 작업의 진행 상황.
+//lastId는 커밋이 끝난 마지막 chunk의 id이므로 실패하면 그 다음 id부터 다시 시작하면 된다.
+@Getter
+public class BulkAgePlusJob {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final int age;
+    private final int chunkSize;
+    private final LocalDateTime startedAt;
+    private volatile Status status = Status.RUNNING;
+    private volatile long lastId;
+    private volatile long chunks;
+    private volatile long updatedRows;
+    private volatile String error;
+    private volatile LocalDateTime finishedAt;
+
+    BulkAgePlusJob(String id, int age, int chunkSize, long afterId) {
+        this.id = id;
+        this.age = age;
+        this.chunkSize = chunkSize;
+        this.lastId = afterId;
+        this.startedAt = LocalDateTime.now();
+    }
+
+    //작업 스레드 하나만 갱신하므로 volatile 쓰기로 충분하다.
+    void chunkCommitted(ChunkUpdateResult result) {
+        lastId = result.getLastId();
+        chunks++;
+        updatedRows += result.getUpdated();
+    }
+
+    void restarted() {
+        status = Status.RUNNING;
+        error = null;
+        finishedAt = null;
+    }
+
+    void completed() {
+        status = Status.COMPLETED;
+        finishedAt = LocalDateTime.now();
+    }
+
+    void failed(Throwable e) {
+        status = Status.FAILED;
+        error = e.toString();
+        finishedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,39 @@
+package study.datajpa.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.OptimisticRetryTemplate;
+
+//같은 member를 동시에 수정하는 두 가지 방법.
+//increaseAge는 락 없이 읽고 @Version으로 충돌을 감지해서 재시도하고,
+//increaseAgeWithLock은 select ... for update로 행 락을 잡고 순서대로 수정한다.
+@Service
+@RequiredArgsConstructor
+public class MemberAgeService {
+    private final MemberRepository memberRepository;
+    private final OptimisticRetryTemplate optimisticRetryTemplate;
+
+    public int increaseAge(Long memberId) {
+        return optimisticRetryTemplate.execute(() -> increase(find(memberId)));
+    }
+
+    @Transactional
+    public int increaseAgeWithLock(Long memberId) {
+        Member member = memberRepository.findForUpdateById(memberId)
+                .orElseThrow(() -> new IllegalArgumentException("member not found: " + memberId));
+        return increase(member);
+    }
+
+    private Member find(Long memberId) {
+        return memberRepository.findById(memberId)
+                .orElseThrow(() -> new IllegalArgumentException("member not found: " + memberId));
+    }
+
+    private int increase(Member member) {
+        member.setAge(member.getAge() + 1);
+        return member.getAge();
+    }
+}
@@ -0,0 +1,100 @@
+package study.datajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.ChunkUpdateResult;
+import study.datajpa.repository.MemberRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+//bulkAgePlus를 id 구간(chunk)마다 따로 커밋하면서 실행한다.
+//한 트랜잭션으로 테이블 전체를 update 하면 끝날 때까지 모든 행의 잠금을 잡고 있어서 다른 쓰기가 멈추지만,
+//chunk마다 커밋하면 잠금은 chunkSize개 행에 대해서만 짧게 잡힌다.
+//대신 전체가 하나의 원자적인 update는 아니다. (중간에 실패하면 lastId까지만 반영된 상태)
+@Slf4j
+@Service
+public class MemberBulkUpdateService {
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    //완료된 작업은 이 시간이 지나면 목록에서 지운다. (실패한 작업은 resume 할 수 있도록 남겨둔다)
+    private static final Duration COMPLETED_JOB_RETENTION = Duration.ofHours(1);
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate chunkTransaction;
+    private final Executor dbExecutor;
+    private final Map<String, BulkAgePlusJob> jobs = new ConcurrentHashMap<>();
+
+    public MemberBulkUpdateService(MemberRepository memberRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   @Qualifier("dbExecutor") Executor dbExecutor) {
+        this.memberRepository = memberRepository;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.dbExecutor = dbExecutor;
+    }
+
+    //dbExecutor에서 실행하고 바로 반환한다. 진행 상황은 find(jobId)로 확인한다.
+    //afterId를 주면 그 다음 id부터 시작한다. (재시작 후 이전 작업의 lastId로 이어서 실행할 때)
+    public BulkAgePlusJob start(int age, int chunkSize, long afterId) {
+        removeExpiredJobs();
+        BulkAgePlusJob job = new BulkAgePlusJob(UUID.randomUUID().toString(), age, chunkSize, afterId);
+        jobs.put(job.getId(), job);
+        dbExecutor.execute(() -> run(job));
+        return job;
+    }
+
+    //실패한 작업을 마지막으로 커밋된 chunk 다음부터 다시 실행한다.
+    public Optional<BulkAgePlusJob> resume(String jobId) {
+        BulkAgePlusJob job = jobs.get(jobId);
+        if (job == null || job.getStatus() != BulkAgePlusJob.Status.FAILED) {
+            return Optional.ofNullable(job);
+        }
+        job.restarted();
+        dbExecutor.execute(() -> run(job));
+        return Optional.of(job);
+    }
+
+    public Optional<BulkAgePlusJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    //호출한 스레드에서 끝까지 실행한다. 트랜잭션 안에서 호출하면 chunk마다 REQUIRES_NEW로 커밋된다.
+    public BulkAgePlusJob agePlus(int age, int chunkSize) {
+        BulkAgePlusJob job = new BulkAgePlusJob(UUID.randomUUID().toString(), age, chunkSize, 0L);
+        run(job);
+        return job;
+    }
+
+    private void removeExpiredJobs() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(COMPLETED_JOB_RETENTION);
+        jobs.values().removeIf(job -> job.getStatus() == BulkAgePlusJob.Status.COMPLETED
+                && job.getFinishedAt().isBefore(expiredBefore));
+    }
+
+    private void run(BulkAgePlusJob job) {
+        try {
+            while (true) {
+                ChunkUpdateResult result = chunkTransaction.execute(status ->
+                        memberRepository.agePlusChunk(job.getAge(), job.getLastId(), job.getChunkSize()));
+                if (result == null || result.isEmpty()) {
+                    break;
+                }
+                //커밋이 끝난 뒤에 진행 상황을 옮긴다.
+                job.chunkCommitted(result);
+            }
+            job.completed();
+        } catch (RuntimeException e) {
+            log.warn("bulkAgePlus job {} failed after id {}", job.getId(), job.getLastId(), e);
+            job.failed(e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package study.datajpa.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class MemberExportService {
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public MemberExportService(MemberRepository memberRepository, ObjectMapper objectMapper,
+                               @Value("${member.export.fetch-size:500}") int fetchSize) {
+        this.memberRepository = memberRepository;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    //stream을 여는 동안 커넥션과 커서를 유지해야 하므로 트랜잭션 안에서 끝까지 쓴다.
+    //List로 모으지 않고 한 건씩 MemberDto -> json 한 줄로 바로 내보낸다.
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<Member> members = memberRepository.streamAll(fetchSize)) {
+            Iterator<Member> iterator = members.iterator();
+            while (iterator.hasNext()) {
+                out.write(objectMapper.writeValueAsBytes(toDto(iterator.next())));
+                out.write('\n');
+                count++;
+            }
+        }
+        out.flush();
+        return count;
+    }
+
+    private MemberDto toDto(Member member) {
+        String teamName = member.getTeam() == null ? null : member.getTeam().getName();
+        return new MemberDto(member.getId(), member.getUsername(), teamName);
+    }
+}
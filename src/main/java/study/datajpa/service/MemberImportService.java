@@ -0,0 +1,389 @@
+package study.datajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.ImportStageResult;
+import study.datajpa.dto.MemberImportResult;
+import study.datajpa.dto.RejectedRow;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//csv(username,age,team)로 member를 대량 등록한다.
+//요청 스레드가 한 줄씩 읽어서 chunkSize줄씩 묶고, chunk마다
+//  parse: 여러 코어에서 병렬로 파싱/검증 (ForkJoinPool.commonPool)
+//  resolve-teams: team 이름 -> id. import마다 캐시를 두고, 처음 보는 이름만 조회하고 없는 team은 한번에 만든다. (dbExecutor)
+//  write: dbExecutor에서 chunk마다 트랜잭션 하나로 jdbc batch 저장
+//를 차례로 실행한다. 동시에 처리 중인 chunk는 maxInFlightChunks개까지만 두고, 가득 차면 읽기를 멈춘다.
+//그래서 파일 크기와 상관없이 메모리에는 최대 maxInFlightChunks x chunkSize줄만 올라온다.
+//chunk는 각각 커밋되므로 중간에 실패한 chunk가 있어도 다른 chunk는 저장된다. (failedChunks)
+@Slf4j
+@Service
+public class MemberImportService {
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    //결과에 담는 거절된 행 수. 전체 개수는 rejected에 있다.
+    private static final int MAX_REPORTED_REJECTIONS = 100;
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+    private final TransactionTemplate transaction;
+    private final Executor dbExecutor;
+    private final Executor parseExecutor = ForkJoinPool.commonPool();
+    private final int maxInFlightChunks;
+
+    public MemberImportService(MemberRepository memberRepository, TeamRepository teamRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Qualifier("dbExecutor") Executor dbExecutor,
+                               @Value("${member.import.max-in-flight-chunks:4}") int maxInFlightChunks) {
+        this.memberRepository = memberRepository;
+        this.teamRepository = teamRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.dbExecutor = dbExecutor;
+        this.maxInFlightChunks = maxInFlightChunks;
+    }
+
+    public MemberImportResult importCsv(InputStream in) throws IOException {
+        return importCsv(in, DEFAULT_CHUNK_SIZE);
+    }
+
+    //첫 줄이 username,age,team 이면 헤더로 보고 건너뛴다. team은 비워도 된다.
+    public MemberImportResult importCsv(InputStream in, int chunkSize) throws IOException {
+        ImportRun run = new ImportRun();
+        Semaphore inFlight = new Semaphore(maxInFlightChunks);
+        long started = System.nanoTime();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            List<String> lines = new ArrayList<>(chunkSize);
+            long lineNumber = 0;
+            long firstLine = 1;
+            long readStarted = System.nanoTime();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && isHeader(line)) {
+                    firstLine = 2;
+                    continue;
+                }
+                lines.add(line);
+                if (lines.size() == chunkSize) {
+                    run.read.add(lines.size(), System.nanoTime() - readStarted);
+                    submit(new RawChunk(firstLine, lines), run, inFlight);
+                    lines = new ArrayList<>(chunkSize);
+                    firstLine = lineNumber + 1;
+                    readStarted = System.nanoTime();
+                }
+            }
+            if (!lines.isEmpty()) {
+                run.read.add(lines.size(), System.nanoTime() - readStarted);
+                submit(new RawChunk(firstLine, lines), run, inFlight);
+            }
+        } finally {
+            //모든 chunk가 끝날 때까지 기다린다. (끝난 chunk가 permit을 반환한다)
+            inFlight.acquireUninterruptibly(maxInFlightChunks);
+            //읽다가 실패해도 이미 저장된 chunk의 team은 다시 맞춘다.
+            refreshMemberCounts(run.touchedTeamIds, chunkSize);
+        }
+        return run.result(System.nanoTime() - started);
+    }
+
+    private void submit(RawChunk chunk, ImportRun run, Semaphore inFlight) {
+        long waitStarted = System.nanoTime();
+        inFlight.acquireUninterruptibly();
+        run.readBlockedNanos.add(System.nanoTime() - waitStarted);
+
+        CompletableFuture.supplyAsync(() -> parse(chunk, run), parseExecutor)
+                //team 조회/생성은 jpa로 DB를 기다리므로 파싱하는 commonPool이 아니라 dbExecutor에서 실행한다.
+                .thenApplyAsync(rows -> resolveTeams(rows, run), dbExecutor)
+                .thenAcceptAsync(rows -> write(rows, run), dbExecutor)
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        run.chunkFailed(chunk, e);
+                    }
+                    inFlight.release();
+                });
+    }
+
+    private List<ParsedRow> parse(RawChunk chunk, ImportRun run) {
+        long started = System.nanoTime();
+        List<ParsedRow> rows = new ArrayList<>(chunk.lines.size());
+        for (int i = 0; i < chunk.lines.size(); i++) {
+            String line = chunk.lines.get(i);
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            long lineNumber = chunk.firstLine + i;
+            try {
+                rows.add(parseRow(line));
+            } catch (IllegalArgumentException e) {
+                run.reject(lineNumber, e.getMessage());
+            }
+        }
+        run.parse.add(chunk.lines.size(), System.nanoTime() - started);
+        return rows;
+    }
+
+    private ParsedRow parseRow(String line) {
+        List<String> columns = split(line);
+        if (columns.size() < 2 || columns.size() > 3) {
+            throw new IllegalArgumentException("expected username,age[,team] but got " + columns.size() + " columns");
+        }
+        String username = columns.get(0).trim();
+        if (username.isEmpty() || username.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("username must be 1-" + MAX_NAME_LENGTH + " characters");
+        }
+        int age;
+        try {
+            age = Integer.parseInt(columns.get(1).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("age is not a number: " + columns.get(1));
+        }
+        if (age < 0) {
+            throw new IllegalArgumentException("age must not be negative: " + age);
+        }
+        String teamName = columns.size() == 3 ? columns.get(2).trim() : "";
+        if (teamName.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("team must be at most " + MAX_NAME_LENGTH + " characters");
+        }
+        return new ParsedRow(username, age, teamName.isEmpty() ? null : teamName);
+    }
+
+    //캐시에 없는 이름만 DB에서 찾고, 그래도 없는 이름은 한 트랜잭션으로 한번에 만든다.
+    //같은 import의 다른 chunk가 같은 team을 두 번 만들지 않도록 조회와 생성은 한 스레드씩 실행한다.
+    //(동시에 실행되는 다른 import와는 조율하지 않는다. team.name에 unique 제약이 없어서 같은 이름이 생길 수 있다)
+    private List<ParsedRow> resolveTeams(List<ParsedRow> rows, ImportRun run) {
+        long started = System.nanoTime();
+        Set<String> missing = new HashSet<>();
+        for (ParsedRow row : rows) {
+            if (row.teamName != null && !run.teamIds.containsKey(row.teamName)) {
+                missing.add(row.teamName);
+            }
+        }
+        if (!missing.isEmpty()) {
+            synchronized (run.teamIds) {
+                missing.removeIf(run.teamIds::containsKey);
+                if (!missing.isEmpty()) {
+                    Map<String, Long> resolved = new HashMap<>();
+                    List<Team> created = transaction.execute(status -> loadOrCreateTeams(missing, resolved));
+                    //커밋이 끝난 뒤에 캐시에 넣어서 다른 chunk가 아직 커밋되지 않은 team id를 쓰지 않게 한다.
+                    run.teamIds.putAll(resolved);
+                    run.teamsCreated.addAndGet(created.size());
+                }
+            }
+        }
+        for (ParsedRow row : rows) {
+            if (row.teamName != null) {
+                row.teamId = run.teamIds.get(row.teamName);
+            }
+        }
+        run.resolveTeams.add(rows.size(), System.nanoTime() - started);
+        return rows;
+    }
+
+    //이름이 같은 team이 이미 여러 개 있으면 id가 가장 작은 team을 사용한다.
+    //찾거나 만든 team id를 resolved에 채우고 새로 만든 team을 반환한다.
+    private List<Team> loadOrCreateTeams(Set<String> names, Map<String, Long> resolved) {
+        for (Team team : teamRepository.findByNameIn(names)) {
+            resolved.merge(team.getName(), team.getId(), Math::min);
+        }
+        List<Team> created = new ArrayList<>();
+        for (String name : names) {
+            if (!resolved.containsKey(name)) {
+                created.add(new Team(name));
+            }
+        }
+        if (!created.isEmpty()) {
+            teamRepository.bulkInsert(created);
+            for (Team team : created) {
+                resolved.put(team.getName(), team.getId());
+            }
+        }
+        return created;
+    }
+
+    private void write(List<ParsedRow> rows, ImportRun run) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        long started = System.nanoTime();
+        transaction.executeWithoutResult(status -> {
+            List<Member> members = new ArrayList<>(rows.size());
+            for (ParsedRow row : rows) {
+                Team team = row.teamId == null ? null : teamRepository.getReferenceById(row.teamId);
+                members.add(Member.withTeamReference(row.username, row.age, team));
+            }
+            memberRepository.bulkInsertWithoutTeamCounts(members);
+        });
+        for (ParsedRow row : rows) {
+            if (row.teamId != null) {
+                run.touchedTeamIds.add(row.teamId);
+            }
+        }
+        run.imported.add(rows.size());
+        run.write.add(rows.size(), System.nanoTime() - started);
+    }
+
+    //member를 저장한 team의 memberCount를 마지막에 한번만 다시 계산한다.
+    private void refreshMemberCounts(Set<Long> teamIds, int chunkSize) {
+        List<Long> ids = new ArrayList<>(teamIds);
+        Collections.sort(ids);
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            teamRepository.refreshMemberCounts(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+        }
+    }
+
+    private static boolean isHeader(String line) {
+        List<String> columns = split(line);
+        return !columns.isEmpty() && columns.get(0).trim().equalsIgnoreCase("username");
+    }
+
+    //큰따옴표로 감싼 값(안에 쉼표, "" 포함)을 지원한다. 값 안의 줄바꿈은 지원하지 않는다.
+    private static List<String> split(String line) {
+        if (line.indexOf('"') < 0) {
+            return Arrays.asList(line.split(",", -1));
+        }
+        List<String> columns = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                columns.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted value");
+        }
+        columns.add(current.toString());
+        return columns;
+    }
+
+    private static final class RawChunk {
+        private final long firstLine;
+        private final List<String> lines;
+
+        private RawChunk(long firstLine, List<String> lines) {
+            this.firstLine = firstLine;
+            this.lines = lines;
+        }
+    }
+
+    private static final class ParsedRow {
+        private final String username;
+        private final int age;
+        private final String teamName;
+        private Long teamId;
+
+        private ParsedRow(String username, int age, String teamName) {
+            this.username = username;
+            this.age = age;
+            this.teamName = teamName;
+        }
+    }
+
+    private static final class StageCounter {
+        private final String name;
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private StageCounter(String name) {
+            this.name = name;
+        }
+
+        private void add(long rowCount, long elapsedNanos) {
+            rows.add(rowCount);
+            nanos.add(elapsedNanos);
+        }
+
+        private ImportStageResult result() {
+            return new ImportStageResult(name, rows.sum(), nanos.sum());
+        }
+    }
+
+    //import 한번의 상태. 여러 스레드가 동시에 갱신한다.
+    private static final class ImportRun {
+        private final StageCounter read = new StageCounter("read");
+        private final StageCounter parse = new StageCounter("parse");
+        private final StageCounter resolveTeams = new StageCounter("resolve-teams");
+        private final StageCounter write = new StageCounter("write");
+        private final LongAdder readBlockedNanos = new LongAdder();
+        private final LongAdder imported = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final AtomicInteger failedChunks = new AtomicInteger();
+        private final AtomicInteger teamsCreated = new AtomicInteger();
+        private final Map<String, Long> teamIds = new ConcurrentHashMap<>();
+        private final Set<Long> touchedTeamIds = ConcurrentHashMap.newKeySet();
+        private final List<RejectedRow> rejectedRows = Collections.synchronizedList(new ArrayList<>());
+
+        private void reject(long line, String reason) {
+            rejected.increment();
+            if (rejectedRows.size() < MAX_REPORTED_REJECTIONS) {
+                rejectedRows.add(new RejectedRow(line, reason));
+            }
+        }
+
+        //chunk의 어느 단계에서 실패했든 그 chunk는 저장되지 않았다. (write는 chunk마다 트랜잭션 하나)
+        //rejected에는 세지 않고 rejectedRows에 chunk의 첫 줄 번호로 한 건만 남긴다.
+        private void chunkFailed(RawChunk chunk, Throwable e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            long lastLine = chunk.firstLine + chunk.lines.size() - 1;
+            log.warn("member import chunk for lines {}-{} failed", chunk.firstLine, lastLine, cause);
+            failedChunks.incrementAndGet();
+            rejectedRows.add(new RejectedRow(chunk.firstLine,
+                    "lines " + chunk.firstLine + "-" + lastLine + " not imported: " + cause.getMessage()));
+        }
+
+        private MemberImportResult result(long elapsedNanos) {
+            List<ImportStageResult> stages = Arrays.asList(
+                    read.result(), parse.result(), resolveTeams.result(), write.result());
+            List<RejectedRow> reported;
+            synchronized (rejectedRows) {
+                reported = new ArrayList<>(rejectedRows);
+            }
+            reported.sort((a, b) -> Long.compare(a.getLine(), b.getLine()));
+            return new MemberImportResult(read.rows.sum(), imported.sum(), rejected.sum(),
+                    failedChunks.get(), teamsCreated.get(), elapsedNanos / 1_000_000,
+                    readBlockedNanos.sum() / 1_000_000, stages, reported);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package study.datajpa.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.metrics.StartupTimings;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+//예제용 member(user0, user1, ...)를 넣는다.
+//예전에는 MemberController의 @PostConstruct에서 넣어서 저장이 끝날 때까지 시작이 멈췄지만,
+//이제는 애플리케이션이 준비된 뒤 dbExecutor에서 넣으므로 시작 시간에 포함되지 않는다.
+//그래서 시작 직후 잠깐은 데이터가 없을 수 있다.
+@Slf4j
+@Component
+public class MemberSeeder {
+    private final MemberRepository memberRepository;
+    private final Executor dbExecutor;
+    private final StartupTimings startupTimings;
+    private final boolean enabled;
+    private final int count;
+
+    public MemberSeeder(MemberRepository memberRepository,
+                        @Qualifier("dbExecutor") Executor dbExecutor,
+                        StartupTimings startupTimings,
+                        @Value("${member.seed.enabled:true}") boolean enabled,
+                        @Value("${member.seed.count:100}") int count) {
+        this.memberRepository = memberRepository;
+        this.dbExecutor = dbExecutor;
+        this.startupTimings = startupTimings;
+        this.enabled = enabled;
+        this.count = count;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedAfterReady() {
+        if (enabled && count > 0) {
+            dbExecutor.execute(this::seed);
+        }
+    }
+
+    public void seed() {
+        long started = System.nanoTime();
+        try {
+            List<Member> members = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                members.add(new Member("user" + i, i));
+            }
+            memberRepository.bulkInsert(members);
+            startupTimings.recordBackground("seed", (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("member seeding failed", e);
+        }
+    }
+}
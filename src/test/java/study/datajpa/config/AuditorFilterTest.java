@@ -0,0 +1,39 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//요청 작성자는 인증된 사용자에서만 가져오고, 클라이언트가 보낸 헤더는 쓰지 않는다.
+class AuditorFilterTest {
+    private final CurrentAuditor currentAuditor = new CurrentAuditor(CurrentAuditor.Scope.TRANSACTION);
+    private final AuditorFilter filter = new AuditorFilter(currentAuditor);
+
+    @Test
+    public void authenticatedPrincipalIsAuditor() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setUserPrincipal(() -> "alice");
+
+        assertThat(auditorDuring(request)).isEqualTo("alice");
+    }
+
+    @Test
+    public void clientHeaderIsIgnored() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Auditor", "admin");
+
+        String auditor = auditorDuring(request);
+        assertThat(auditor).isNotEqualTo("admin");
+        assertThat(auditorDuring(request)).isNotEqualTo(auditor);
+    }
+
+    private String auditorDuring(MockHttpServletRequest request) throws Exception {
+        AtomicReference<String> auditor = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> auditor.set(currentAuditor.resolve()));
+        return auditor.get();
+    }
+}
@@ -0,0 +1,81 @@
+package study.datajpa.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//H2 메모리 DB 두 개(primary, replica)에 서로 다른 값을 넣고 어느 쪽에서 읽었는지 확인한다.
+class ReadWriteRoutingDataSourceTest {
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    public void setUp() {
+        primary = h2("routing-primary");
+        replica = h2("routing-replica");
+        init(primary, "primary");
+        init(replica, "replica");
+    }
+
+    @Test
+    public void readOnlyTransactionGoesToReplica() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica", replica);
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replicas, Duration.ofSeconds(10));
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        assertThat(read(dataSource, true)).isEqualTo("replica");
+        assertThat(read(dataSource, false)).isEqualTo("primary");
+        //트랜잭션 밖은 primary
+        assertThat(new JdbcTemplate(dataSource).queryForObject("select name from node", String.class))
+                .isEqualTo("primary");
+    }
+
+    @Test
+    public void unavailableReplicaFallsBackToPrimary() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        //IFEXISTS=TRUE: 없는 DB라서 커넥션을 얻지 못한다.
+        replicas.put("down", new DriverManagerDataSource("jdbc:h2:mem:routing-missing;IFEXISTS=TRUE", "sa", ""));
+        replicas.put("replica", replica);
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replicas, Duration.ofMinutes(1));
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        //첫 읽기는 down에 걸려서 primary에서 읽고, 이후에는 down을 건너뛰고 replica만 쓴다.
+        assertThat(read(dataSource, true)).isEqualTo("primary");
+        assertThat(routing.replicaHealth()).containsEntry("down", false).containsEntry("replica", true);
+        for (int i = 0; i < 4; i++) {
+            assertThat(read(dataSource, true)).isEqualTo("replica");
+        }
+    }
+
+    private String read(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        tx.setReadOnly(readOnly);
+        return tx.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("select name from node", String.class));
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static void init(DataSource dataSource, String name) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists node (name varchar(20))");
+        jdbcTemplate.update("delete from node");
+        jdbcTemplate.update("insert into node values (?)", name);
+    }
+}
@@ -0,0 +1,30 @@
+package study.datajpa.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyHistogramTest {
+
+    @Test
+    public void bucketBounds() {
+        for (long value : new long[]{0, 7, 8, 15, 16, 1_000, 123_456_789L, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(value);
+            assertThat(LatencyHistogram.upperBoundOf(index)).isGreaterThanOrEqualTo(value);
+            //오차는 bucket 크기(값의 1/8) 이내
+            assertThat(LatencyHistogram.upperBoundOf(index) - value).isLessThanOrEqualTo(Math.max(value / 8, 0));
+        }
+    }
+
+    @Test
+    public void percentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        assertThat(histogram.percentile(0.5)).isBetween(50_000L, 50_000L + 50_000L / 8);
+        assertThat(histogram.percentile(0.99)).isBetween(99_000L, 99_000L + 99_000L / 8);
+        assertThat(histogram.max()).isGreaterThanOrEqualTo(100_000L);
+    }
+}
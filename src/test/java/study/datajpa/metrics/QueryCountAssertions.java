@@ -0,0 +1,54 @@
+package study.datajpa.metrics;
+
+import java.util.Map;
+
+//테스트에서 쿼리 수 한도를 고정할 때 사용한다.
+//QueryCountAssertions.assertStatements(queryCounter, 1, () -> memberRepository.findMemberJoinFetch());
+public final class QueryCountAssertions {
+
+    private QueryCountAssertions() {
+    }
+
+    public static QueryScope count(QueryCounter queryCounter, Runnable action) {
+        try (QueryScope scope = queryCounter.open("test")) {
+            action.run();
+            return scope;
+        }
+    }
+
+    public static QueryScope assertStatements(QueryCounter queryCounter, int expected, Runnable action) {
+        QueryScope scope = count(queryCounter, action);
+        if (scope.getStatementCount() != expected) {
+            throw new AssertionError("expected " + expected + " statements but was "
+                    + scope.getStatementCount() + describe(scope));
+        }
+        return scope;
+    }
+
+    public static QueryScope assertStatementsAtMost(QueryCounter queryCounter, int max, Runnable action) {
+        QueryScope scope = count(queryCounter, action);
+        if (scope.getStatementCount() > max) {
+            throw new AssertionError("expected at most " + max + " statements but was "
+                    + scope.getStatementCount() + describe(scope));
+        }
+        return scope;
+    }
+
+    //같은 모양의 sql이 두번 이상 실행되면 N+1로 보고 실패한다.
+    public static QueryScope assertNoRepeatedStatements(QueryCounter queryCounter, Runnable action) {
+        QueryScope scope = count(queryCounter, action);
+        if (scope.getMaxRepeats() > 1) {
+            throw new AssertionError("statement repeated " + scope.getMaxRepeats() + " times (N+1?)"
+                    + describe(scope));
+        }
+        return scope;
+    }
+
+    private static String describe(QueryScope scope) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Integer> shape : scope.getShapes().entrySet()) {
+            sb.append(System.lineSeparator()).append("  ").append(shape.getValue()).append("x ").append(shape.getKey());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,31 @@
+package study.datajpa.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryCounterTest {
+
+    @Test
+    public void shapeOf() {
+        String sql = "select m1_0.member_id from member m1_0\n    where m1_0.team_id in (?, ?,?)";
+
+        assertThat(QueryCounter.shapeOf(sql))
+                .isEqualTo("select m1_0.member_id from member m1_0 where m1_0.team_id in (?)");
+    }
+
+    @Test
+    public void countRepeatedShapes() {
+        QueryCounter counter = new QueryCounter(50, 10, false);
+
+        try (QueryScope scope = counter.open("test")) {
+            counter.record("select * from team where team_id=?");
+            counter.record("select * from team where team_id=?");
+            counter.record("select * from member");
+
+            assertThat(scope.getStatementCount()).isEqualTo(3);
+            assertThat(scope.getMaxRepeats()).isEqualTo(2);
+            assertThat(scope.getMostRepeatedShape()).isEqualTo("select * from team where team_id=?");
+        }
+    }
+}
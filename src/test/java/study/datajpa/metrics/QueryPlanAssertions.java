@@ -0,0 +1,75 @@
+package study.datajpa.metrics;
+
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+//action이 실행한 sql 중 where 조건이나 order by가 있는 select/update/delete를 H2 EXPLAIN으로 확인해서
+//테이블 전체를 읽는(tableScan) sql이 있으면 실패한다. 검사할 sql이 하나도 없어도 실패한다.
+//QueryPlanAssertions.assertNoTableScan(queryCounter, dataSource, () -> memberRepository.findByUsername("a"));
+public final class QueryPlanAssertions {
+
+    private QueryPlanAssertions() {
+    }
+
+    public static QueryScope assertNoTableScan(QueryCounter queryCounter, DataSource dataSource, Runnable action) {
+        QueryScope scope = QueryCountAssertions.count(queryCounter, action);
+        List<String> violations = new ArrayList<>();
+        int checked = 0;
+        for (String sql : scope.getShapes().keySet()) {
+            if (!filtered(sql)) {
+                continue;
+            }
+            checked++;
+            String plan = explain(dataSource, sql);
+            if (plan.contains(".tableScan")) {
+                violations.add(sql + System.lineSeparator() + "    plan: " + plan);
+            }
+        }
+        if (checked == 0) {
+            throw new AssertionError("no statement with where or order by to explain: " + scope.getShapes().keySet());
+        }
+        if (!violations.isEmpty()) {
+            throw new AssertionError("table scan in " + violations.size() + " statement(s):"
+                    + System.lineSeparator() + "  " + String.join(System.lineSeparator() + "  ", violations));
+        }
+        return scope;
+    }
+
+    //조건도 정렬도 없이 전체를 읽는 sql(findAll, count 등)은 tableScan이 당연하므로 검사하지 않는다.
+    //order by만 있는 sql은 정렬 인덱스를 타야 전체를 읽고 정렬하지 않는다.
+    private static boolean filtered(String sql) {
+        String lower = sql.toLowerCase(Locale.ROOT);
+        return (lower.startsWith("select") || lower.startsWith("update") || lower.startsWith("delete"))
+                && (lower.contains(" where ") || lower.contains(" order by "));
+    }
+
+    //파라미터는 null로 채운다. H2는 파라미터 값과 관계없이 실행 계획을 세우므로 결과는 같다.
+    private static String explain(DataSource dataSource, String sql) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setObject(i, null);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (rs.next()) {
+                    plan.append(rs.getString(1).replaceAll("\\s+", " "));
+                }
+                return plan.toString();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("explain failed: " + sql, e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
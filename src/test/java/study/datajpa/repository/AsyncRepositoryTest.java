@@ -0,0 +1,73 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.RepositoryMethodStatsDto;
+import study.datajpa.entity.Member;
+import study.datajpa.metrics.RepositoryMetrics;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//비동기 조회는 dbExecutor 스레드의 별도 트랜잭션에서 실행되므로 테스트 데이터는 커밋되어 있어야 한다.
+@SpringBootTest
+class AsyncRepositoryTest {
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    RepositoryMetrics repositoryMetrics;
+
+    @Test
+    public void asyncQueries() {
+        memberRepository.save(new Member("asyncMember", 10));
+
+        CompletableFuture<List<MemberDto>> content = memberRepository.findMemberDtoListAsync(PageRequest.of(0, 3));
+        CompletableFuture<Long> memberCount = memberRepository.countMembersAsync();
+        CompletableFuture<Long> teamCount = teamRepository.countTeamsAsync();
+
+        CompletableFuture.allOf(content, memberCount, teamCount).join();
+
+        assertThat(content.join()).hasSizeLessThanOrEqualTo(3).isNotEmpty();
+        assertThat(memberCount.join()).isGreaterThanOrEqualTo(1);
+        assertThat(teamCount.join()).isGreaterThanOrEqualTo(0);
+    }
+
+    //비동기 메서드는 작업을 넘긴 시점이 아니라 future가 끝난 시점에 결과 행 수로 기록된다.
+    @Test
+    public void asyncQueriesAreMeasuredOnCompletion() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            memberRepository.save(new Member("asyncMetrics" + i, 10));
+        }
+        RepositoryMethodStatsDto before = stats("MemberRepository.findMemberDtoListAsync");
+
+        memberRepository.findMemberDtoListAsync(PageRequest.of(0, 3)).join();
+
+        //future를 기다리는 쪽과 기록하는 콜백의 실행 순서는 정해져 있지 않다.
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (calls(stats("MemberRepository.findMemberDtoListAsync")) == calls(before)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        RepositoryMethodStatsDto after = stats("MemberRepository.findMemberDtoListAsync");
+        assertThat(calls(after)).isEqualTo(calls(before) + 1);
+        assertThat(after.getRows() - (before == null ? 0 : before.getRows())).isEqualTo(3);
+    }
+
+    private RepositoryMethodStatsDto stats(String method) {
+        return repositoryMetrics.snapshot().stream()
+                .filter(s -> s.getMethod().equals(method))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static long calls(RepositoryMethodStatsDto stats) {
+        return stats == null ? 0 : stats.getCalls();
+    }
+}
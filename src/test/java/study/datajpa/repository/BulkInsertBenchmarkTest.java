@@ -0,0 +1,105 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//행마다 insert(예전 IDENTITY 방식), save() 반복, bulkInsert의 초당 저장 건수 비교
+//IDENTITY는 persist 할 때 바로 insert를 실행해야 id를 알 수 있어서 batch 없이 행마다 DB를 한번씩 다녀왔다.
+//member id가 sequence로 바뀌었으므로 save() 후 바로 flush 해서 그때와 같은 행마다 insert를 재현한다.
+//./gradlew benchmarkTest
+@Tag("benchmark")
+@SpringBootTest
+class BulkInsertBenchmarkTest {
+    private static final int WARMUP_ROWS = 1_000;
+    private static final int ROWS = 20_000;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    EntityManager em;
+
+    //sql 로그(debug/trace)를 찍는 시간이 insert보다 길어서 측정하는 동안만 끈다.
+    //설정 값으로 바꾸면 컨텍스트가 하나 더 만들어지므로 컨텍스트가 뜬 뒤에 로거 레벨을 직접 바꾼다.
+    @BeforeEach
+    public void quietSqlLogging() {
+        setSqlLogLevel(LogLevel.WARN, LogLevel.WARN);
+    }
+
+    @AfterEach
+    public void restoreSqlLogging() {
+        setSqlLogLevel(LogLevel.DEBUG, LogLevel.TRACE);
+    }
+
+    private static void setSqlLogLevel(LogLevel sql, LogLevel type) {
+        LoggingSystem loggingSystem = LoggingSystem.get(BulkInsertBenchmarkTest.class.getClassLoader());
+        loggingSystem.setLogLevel("org.hibernate.SQL", sql);
+        loggingSystem.setLogLevel("org.hibernate.type", type);
+    }
+
+    @Test
+    public void saveLoopVsBulkInsert() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        saveLoop(tx, "warmup-row", WARMUP_ROWS, true);
+        saveLoop(tx, "warmup-save", WARMUP_ROWS, false);
+        memberRepository.bulkInsert(members("warmup-bulk", WARMUP_ROWS));
+
+        long rowNanos = saveLoop(tx, "row", ROWS, true);
+        long saveNanos = saveLoop(tx, "save", ROWS, false);
+
+        long start = System.nanoTime();
+        int inserted = memberRepository.bulkInsert(members("bulk", ROWS));
+        long bulkNanos = System.nanoTime() - start;
+
+        System.out.printf("insert per row (IDENTITY) : %,d rows/sec%n", rowsPerSecond(ROWS, rowNanos));
+        System.out.printf("save() loop               : %,d rows/sec%n", rowsPerSecond(ROWS, saveNanos));
+        System.out.printf("bulkInsert                : %,d rows/sec (%.1fx insert per row)%n",
+                rowsPerSecond(ROWS, bulkNanos), (double) rowNanos / Math.max(bulkNanos, 1));
+        assertThat(inserted).isEqualTo(ROWS);
+    }
+
+    //flushEachRow이면 IDENTITY처럼 save 할 때마다 insert를 실행한다.
+    private long saveLoop(TransactionTemplate tx, String prefix, int rows, boolean flushEachRow) {
+        long start = System.nanoTime();
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < rows; i++) {
+                Member member = memberRepository.save(new Member(prefix + i, i % 100));
+                if (flushEachRow) {
+                    //flush는 영속성 컨텍스트 전체를 검사하므로 insert한 member는 바로 빼서 행마다 비용이 같게 한다.
+                    em.flush();
+                    em.detach(member);
+                }
+            }
+        });
+        return System.nanoTime() - start;
+    }
+
+    private List<Member> members(String prefix, int rows) {
+        List<Member> members = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            members.add(new Member(prefix + i, i % 100));
+        }
+        return members;
+    }
+
+    private long rowsPerSecond(int rows, long nanos) {
+        return rows * 1_000_000_000L / Math.max(nanos, 1);
+    }
+}
@@ -0,0 +1,52 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ChunkedQueryExecutorTest {
+    @Autowired
+    ChunkedQueryExecutor chunkedQueryExecutor;
+    @Autowired
+    ThreadPoolTaskExecutor dbExecutor;
+
+    //dbExecutor 스레드를 모두 차지한 작업들이 각각 chunk 조회를 해도 서로 기다리지 않고 끝난다.
+    @Test
+    public void chunksRunInlineOnDbExecutorThreads() throws Exception {
+        List<Integer> params = IntStream.range(0, ChunkedQueryExecutor.CHUNK_SIZE * 3)
+                .boxed()
+                .collect(Collectors.toList());
+        Set<String> mismatches = ConcurrentHashMap.newKeySet();
+
+        List<CompletableFuture<List<Integer>>> futures = new ArrayList<>();
+        for (int i = 0; i < dbExecutor.getMaxPoolSize(); i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                String caller = Thread.currentThread().getName();
+                return chunkedQueryExecutor.query(params, chunk -> {
+                    if (!Thread.currentThread().getName().equals(caller)) {
+                        mismatches.add(Thread.currentThread().getName());
+                    }
+                    return chunk;
+                });
+            }, dbExecutor));
+        }
+
+        for (CompletableFuture<List<Integer>> future : futures) {
+            assertThat(future.get(10, TimeUnit.SECONDS)).containsExactlyElementsOf(params);
+        }
+        assertThat(mismatches).isEmpty();
+    }
+}
@@ -0,0 +1,61 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.UpsertResult;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@Rollback(false)
+class ItemRepositoryTest {
+    @Autowired
+    ItemRepository itemRepository;
+    @Autowired
+    EntityManager em;
+
+    @Test
+    public void save() {
+        //isNew()가 createdDate로 판단하므로 merge(select) 없이 persist 된다.
+        Item item = new Item("A");
+        itemRepository.save(item);
+
+        assertThat(item.getCreatedDate()).isNotNull();
+    }
+
+    @Test
+    public void upsertAll() {
+        itemRepository.save(new Item("upsert-1"));
+        em.flush();
+        em.clear();
+        LocalDateTime createdDate = itemRepository.findById("upsert-1").get().getCreatedDate();
+        em.clear();
+
+        UpsertResult first = itemRepository.upsertAll(Arrays.asList(
+                new Item("upsert-1"), new Item("upsert-2"), new Item("upsert-3"), new Item("upsert-3")));
+
+        assertThat(first.getInserted()).isEqualTo(2);
+        assertThat(first.getUpdated()).isEqualTo(1);
+
+        //다시 넣으면 전부 update
+        UpsertResult second = itemRepository.upsertAll(Arrays.asList(
+                new Item("upsert-1"), new Item("upsert-2"), new Item("upsert-3")));
+        assertThat(second.getInserted()).isZero();
+        assertThat(second.getUpdated()).isEqualTo(3);
+
+        //이미 있던 item의 createdDate는 그대로다.
+        Item existing = itemRepository.findById("upsert-1").get();
+        assertThat(existing.getCreatedDate()).isEqualTo(createdDate);
+        assertThat(existing.getLastModifiedDate()).isNotNull();
+        assertThat(itemRepository.findById("upsert-2").get().getCreatedDate()).isNotNull();
+    }
+}
@@ -0,0 +1,128 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberLookupCoalescerTest {
+
+    @Test
+    public void concurrentLookupsShareOneQuery() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        MemberLookupCoalescer coalescer = new MemberLookupCoalescer(username -> {
+            loads.incrementAndGet();
+            await(release);
+            return Collections.singletonList(new Member(username, 10));
+        });
+
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<List<Member>>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(pool.submit(() -> coalescer.findByUsername("hot")));
+            }
+            //첫 호출이 조회 중인 동안 나머지가 모두 합쳐질 때까지 기다린다.
+            while (coalescer.stats().getCollapsed() < callers - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            List<Member> results = new ArrayList<>();
+            for (Future<List<Member>> future : futures) {
+                results.addAll(future.get(5, TimeUnit.SECONDS));
+            }
+
+            assertThat(loads.get()).isEqualTo(1);
+            assertThat(results).hasSize(callers).extracting(Member::getUsername).containsOnly("hot");
+            //호출마다 서로 다른 복사본을 받는다.
+            assertThat(results.stream().distinct()).hasSize(callers);
+            assertThat(coalescer.stats().getQueries()).isEqualTo(1);
+            assertThat(coalescer.stats().getInFlight()).isZero();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    //다른 스레드의 조회가 진행 중이어도 트랜잭션 안의 호출은 직접 조회한다.
+    @Test
+    public void lookupInsideTransactionIsNotCoalesced() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MemberLookupCoalescer coalescer = new MemberLookupCoalescer(username -> {
+            if (loads.incrementAndGet() == 1) {
+                loading.countDown();
+                await(release);
+            }
+            return Collections.singletonList(new Member(username, 10));
+        });
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Member>> outside = pool.submit(() -> coalescer.findByUsername("hot"));
+            await(loading);
+
+            TransactionSynchronizationManager.setActualTransactionActive(true);
+            try {
+                assertThat(coalescer.findByUsername("hot")).hasSize(1);
+            } finally {
+                TransactionSynchronizationManager.setActualTransactionActive(false);
+            }
+            release.countDown();
+
+            assertThat(outside.get(5, TimeUnit.SECONDS)).hasSize(1);
+            assertThat(loads.get()).isEqualTo(2);
+            assertThat(coalescer.stats().getCollapsed()).isZero();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void finishedLookupIsNotReused() {
+        AtomicInteger loads = new AtomicInteger();
+        MemberLookupCoalescer coalescer = new MemberLookupCoalescer(username -> {
+            loads.incrementAndGet();
+            return Collections.singletonList(new Member(username, 10));
+        });
+
+        coalescer.findMemberByUsername("a");
+        coalescer.findMemberByUsername("a");
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(coalescer.stats().getCollapsed()).isZero();
+    }
+
+    @Test
+    public void failureIsPropagatedAndCleared() {
+        MemberLookupCoalescer coalescer = new MemberLookupCoalescer(username -> {
+            throw new IllegalStateException("db down");
+        });
+
+        assertThatThrownBy(() -> coalescer.findByUsername("a")).isInstanceOf(IllegalStateException.class);
+        assertThat(coalescer.stats().getInFlight()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
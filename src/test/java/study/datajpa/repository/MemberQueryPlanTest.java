@@ -0,0 +1,98 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.metrics.QueryCounter;
+import study.datajpa.metrics.QueryScope;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.datajpa.metrics.QueryPlanAssertions.assertNoTableScan;
+
+//username/age 조건 조회가 모두 인덱스를 타는지 실행 계획으로 확인한다.
+@SpringBootTest
+@Transactional
+class MemberQueryPlanTest {
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    QueryCounter queryCounter;
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    public void setUp() {
+        Team team = new Team("planTeam");
+        em.persist(team);
+        for (int i = 0; i < 20; i++) {
+            memberRepository.save(new Member("plan" + i, i, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void usernameQueriesUseIndex() {
+        QueryScope scope = assertNoTableScan(queryCounter, dataSource, () -> {
+            memberRepository.findByUsername("plan1");
+            memberRepository.findListByUsername("plan1");
+            memberRepository.findMemberByUsername("plan1");
+            memberRepository.findOptionalByUsername("plan1");
+            memberRepository.findReadOnlyByUsername("plan1");
+            memberRepository.findEntityGraphByUsername("plan1");
+            memberRepository.findLockByUsername("plan1");
+            memberRepository.findUser("plan1", 1);
+            memberRepository.findByUsernameAndAgeGreaterThan("plan1", 0);
+            memberRepository.findByNames(Arrays.asList("plan1", "plan2"));
+            memberRepository.findKeysetAfter("plan1", 0L, PageRequest.of(0, 5));
+            em.flush();
+        });
+
+        assertThat(scope.getShapes()).isNotEmpty();
+    }
+
+    @Test
+    public void ageQueriesUseIndex() {
+        assertNoTableScan(queryCounter, dataSource, () -> {
+            assertThat(memberRepository.findByAge(1, PageRequest.of(0, 5)).getContent())
+                    .isNotEmpty()
+                    .allMatch(m -> m.getAge() == 1);
+            memberRepository.findSliceByAge(1, PageRequest.of(0, 5));
+            memberRepository.findTop3ByOrderByAgeAsc();
+            memberJpaRepository.findPage(0, 5, 1);
+            memberJpaRepository.findPageAfter(1, "plan1", Long.MAX_VALUE, 5);
+            memberJpaRepository.totalCount(1);
+            memberRepository.bulkAgePlus(100);
+            memberRepository.agePlusChunk(100, 0L, 10);
+        });
+    }
+
+    //검사할 sql이 없으면 아무것도 확인하지 않은 것이므로 실패해야 한다.
+    @Test
+    public void failsWhenNothingToExplain() {
+        assertThatThrownBy(() -> assertNoTableScan(queryCounter, dataSource, () -> memberRepository.findAll()))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("no statement");
+    }
+
+    @Test
+    public void keysetPageUsesIndex() {
+        assertNoTableScan(queryCounter, dataSource, () ->
+                memberRepository.findKeysetPage(MemberCursor.of(memberRepository.findByUsername("plan3").get(0)), 5));
+    }
+}
@@ -6,17 +6,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.CursorPage;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
+import study.datajpa.metrics.QueryCountAssertions;
+import study.datajpa.metrics.QueryCounter;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -31,6 +39,10 @@ class MemberRepositoryTest {
     TeamRepository teamRepository;
     @Autowired
     EntityManager em;
+    @Autowired
+    QueryCounter queryCounter;
+    @Autowired
+    MemberLookupCoalescer memberLookupCoalescer;
 
     @Test
     public void testMember() {
@@ -139,21 +151,40 @@ class MemberRepositoryTest {
         }
     }
 
+    //롤백하지 않는 테스트들과 username이 겹치지 않도록 이 테스트에서만 쓰는 이름을 사용한다.
     @Test
     public void findByNames() {
-        Member m1 = new Member("AAA", 10);
-        Member m2 = new Member("BBB", 10);
-        Member m3 = new Member("CCC", 10);
-        Member m4 = new Member("DDD", 10);
+        Member m1 = new Member("findByNamesA", 10);
+        Member m2 = new Member("findByNamesB", 10);
+        Member m3 = new Member("findByNamesC", 10);
+        Member m4 = new Member("findByNamesD", 10);
         memberRepository.save(m1);
         memberRepository.save(m2);
         memberRepository.save(m3);
         memberRepository.save(m4);
 
-        List<Member> members = memberRepository.findByNames(Arrays.asList("AAA", "BBB"));
+        List<Member> members = memberRepository.findByNames(Arrays.asList("findByNamesA", "findByNamesB"));
 
-        assertThat(members.get(0).getUsername()).isEqualTo("AAA");
-        assertThat(members.get(1).getUsername()).isEqualTo("BBB");
+        assertThat(members).extracting(Member::getUsername)
+                .containsExactlyInAnyOrder("findByNamesA", "findByNamesB");
+    }
+
+    @Test
+    public void findByNamesLargeList() {
+        List<String> names = new ArrayList<>();
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            names.add("names" + i);
+            members.add(new Member("names" + i, 10));
+        }
+        memberRepository.saveAll(members);
+        em.flush();
+        em.clear();
+
+        //512개씩 3번 나눠서 조회하고 합친다.
+        List<Member> result = memberRepository.findByNames(names);
+
+        assertThat(result).hasSize(1200);
     }
 
     @Test
@@ -200,6 +231,101 @@ class MemberRepositoryTest {
         assertThat(page.hasNext()).isTrue();
     }
 
+    @Test
+    public void memberDtoPage() {
+        Team team = new Team("teamA");
+        teamRepository.save(team);
+        memberRepository.save(new Member("dtoMember1", 10, team));
+        memberRepository.save(new Member("dtoMember2", 10));
+        em.flush();
+        em.clear();
+
+        PageRequest pageRequest = PageRequest.of(0, 100, Sort.by(Sort.Direction.ASC, "username"));
+        Page<MemberDto> page = memberRepository.findMemberDtoPage(pageRequest);
+
+        //team이 없는 member도 left join으로 포함된다.
+        assertThat(page.getContent()).extracting(MemberDto::getUsername).contains("dtoMember1", "dtoMember2");
+        assertThat(page.getContent()).filteredOn(dto -> dto.getUsername().equals("dtoMember1"))
+                .extracting(MemberDto::getTeamName).containsExactly("teamA");
+    }
+
+    @Test
+    public void slicePaging() {
+        for (int i = 0; i < 10; i++) {
+            memberRepository.save(new Member("member" + i, 11));
+        }
+
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "username"));
+        Slice<Member> slice = memberRepository.findSliceByAge(11, pageRequest);
+
+        assertThat(slice.getContent().size()).isEqualTo(3);
+        assertThat(slice.hasNext()).isTrue();
+    }
+
+    //count는 나이별로 캐시되므로 다른 테스트가 쓰지 않는 나이를 사용한다.
+    @Test
+    public void cachedCountPaging() {
+        int age = 7012;
+        for (int i = 0; i < 10; i++) {
+            memberRepository.save(new Member("member" + i, age));
+        }
+
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "username"));
+        Page<Member> page = memberRepository.findByAgeWithCachedCount(age, pageRequest);
+        assertThat(page.getTotalElements()).isEqualTo(10);
+
+        //staleness 안에서는 새로 저장된 member가 count에 반영되지 않는다.
+        memberRepository.save(new Member("member10", age));
+        em.flush();
+        Page<Member> cached = memberRepository.findByAgeWithCachedCount(age, pageRequest);
+        assertThat(cached.getTotalElements()).isEqualTo(10);
+        assertThat(cached.getContent().size()).isEqualTo(3);
+    }
+
+    @Test
+    public void keysetPaging() {
+        for (int i = 0; i < 10; i++) {
+            memberRepository.save(new Member("keyset" + i, 10));
+        }
+
+        //keyset0 ~ keyset2 다음부터 3개씩 조회
+        CursorPage<Member> page = memberRepository.findKeysetPage(
+                new MemberCursor("keyset2", Long.MAX_VALUE), 3);
+
+        assertThat(page.getContent()).extracting(Member::getUsername)
+                .containsExactly("keyset3", "keyset4", "keyset5");
+        assertThat(page.isHasNext()).isTrue();
+
+        //nextCursor로 이어서 조회
+        CursorPage<Member> next = memberRepository.findKeysetPage(
+                MemberCursor.decode(page.getNextCursor()), 3);
+        assertThat(next.getContent()).extracting(Member::getUsername)
+                .containsExactly("keyset6", "keyset7", "keyset8");
+    }
+
+    @Test
+    public void streamAll() {
+        Team team = new Team("teamA");
+        teamRepository.save(team);
+        memberRepository.save(new Member("stream1", 10, team));
+        memberRepository.save(new Member("stream2", 20, team));
+        em.flush();
+        em.clear();
+
+        try (Stream<Member> stream = memberRepository.streamAll(1)) {
+            List<Member> members = stream
+                    .filter(m -> m.getUsername().startsWith("stream"))
+                    .collect(Collectors.toList());
+
+            assertThat(members).extracting(Member::getUsername).containsExactly("stream1", "stream2");
+            //읽은 member와 team은 영속성 컨텍스트에 남지 않는다.
+            assertThat(members).noneMatch(em::contains);
+            assertThat(members).noneMatch(m -> em.contains(m.getTeam()));
+            //team은 fetch join 되어 있어서 준영속 상태에서도 사용 가능
+            assertThat(members.get(0).getTeam().getName()).isEqualTo("teamA");
+        }
+    }
+
     @Test
     public void bulkUpdate() {
         for (int i = 1; i <= 5; i++) {
@@ -276,6 +402,27 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void fetchJoinQueryBudget() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        teamRepository.save(teamA);
+        teamRepository.save(teamB);
+        memberRepository.save(new Member("member1", 10, teamA));
+        memberRepository.save(new Member("member2", 10, teamB));
+        em.flush();
+        em.clear();
+
+        //fetch join은 team까지 쿼리 한번으로 가져온다. (다른 테스트가 남긴 team 없는 member도 함께 조회된다)
+        QueryCountAssertions.assertNoRepeatedStatements(queryCounter, () -> {
+            for (Member member : memberRepository.findMemberJoinFetch()) {
+                if (member.getTeam() != null) {
+                    member.getTeam().getName();
+                }
+            }
+        });
+    }
+
     @Test
     public void queryHint() {
         //given
@@ -317,4 +464,28 @@ class MemberRepositoryTest {
         System.out.println("member.getUpdateDate() = " + findMember.getLastModifiedBy());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void coalescedLookupReturnsDetachedCopy() {
+        Team team = teamRepository.save(new Team("coalesceTeam"));
+        memberRepository.save(new Member("coalesceMember", 10, team));
+        em.flush();
+
+        Member copy = memberLookupCoalescer.findMemberByUsername("coalesceMember");
+
+        assertThat(copy.getUsername()).isEqualTo("coalesceMember");
+        assertThat(copy.getTeam().getName()).isEqualTo("coalesceTeam");
+        assertThat(em.contains(copy)).isFalse();
+        assertThat(memberLookupCoalescer.findOptionalByUsername("nobody")).isEmpty();
+    }
+
+    @Test
+    public void auditorIsResolvedOncePerTransaction() {
+        Member member1 = memberRepository.save(new Member("auditMember1", 10));
+        Member member2 = memberRepository.save(new Member("auditMember2", 10));
+
+        assertThat(member1.getCreateBy()).isNotNull().isEqualTo(member2.getCreateBy());
+        assertThat(member1.getLastModifiedBy()).isEqualTo(member1.getCreateBy());
+        assertThat(member1.getCreateDate()).isNotNull().isEqualTo(member1.getUpdateDate());
+    }
+}
@@ -0,0 +1,92 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//인덱스는 커밋된 변경만 반영하므로 테스트를 트랜잭션으로 묶지 않는다.
+@SpringBootTest
+class MemberSearchRepositoryTest {
+    @Autowired
+    MemberSearchRepository memberSearchRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    //다른 테스트 데이터와 겹치지 않는 username prefix
+    private String prefix;
+
+    @BeforeEach
+    public void setUp() {
+        prefix = "search" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Test
+    public void committedChangesAreIndexed() {
+        Member memberA = memberRepository.save(new Member(prefix + "A", 10));
+        Member memberB = memberRepository.save(new Member(prefix + "B", 10));
+
+        assertThat(memberSearchRepository.findIdsByPrefix(prefix, 10))
+                .containsExactly(memberA.getId(), memberB.getId());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                memberRepository.findById(memberB.getId()).get().changeUserName(prefix + "C"));
+        assertThat(memberSearchRepository.findIdsByPrefix(prefix + "B", 10)).isEmpty();
+        assertThat(memberSearchRepository.findIdsByPrefix(prefix + "C", 10)).containsExactly(memberB.getId());
+
+        memberRepository.deleteById(memberA.getId());
+        assertThat(memberSearchRepository.findIdsByPrefix(prefix, 10)).containsExactly(memberB.getId());
+    }
+
+    //롤백된 변경은 인덱스에 들어가지 않는다.
+    @Test
+    public void rolledBackInsertIsNotIndexed() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberRepository.save(new Member(prefix + "rollback", 10));
+            memberRepository.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(memberSearchRepository.findIdsByPrefix(prefix, 10)).isEmpty();
+    }
+
+    //findAllById는 순서를 보장하지 않지만 결과는 인덱스 순서(username, id)를 따른다.
+    @Test
+    public void searchKeepsIndexOrder() {
+        Member second = memberRepository.save(new Member(prefix + "2", 10));
+        Member firstA = memberRepository.save(new Member(prefix + "1", 10));
+        Member firstB = memberRepository.save(new Member(prefix + "1", 10));
+
+        List<Member> result = memberSearchRepository.searchByPrefix(prefix, 10);
+
+        assertThat(result).extracting(Member::getId)
+                .containsExactly(firstA.getId(), firstB.getId(), second.getId());
+        assertThat(memberSearchRepository.searchBySubstring(prefix.substring(3), 10)).extracting(Member::getId)
+                .containsExactly(firstA.getId(), firstB.getId(), second.getId());
+    }
+
+    //bulk delete는 엔티티 이벤트가 없으므로 커밋된 뒤 인덱스를 다시 만든다.
+    @Test
+    public void bulkDeleteRebuildsIndex() throws InterruptedException {
+        Member member = memberRepository.save(new Member(prefix + "bulk", 10));
+        assertThat(memberSearchRepository.findIdsByPrefix(prefix, 10)).containsExactly(member.getId());
+
+        memberRepository.deleteAllByIdInBatch(List.of(member.getId()));
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!memberSearchRepository.findIdsByPrefix(prefix, 10).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(memberSearchRepository.findIdsByPrefix(prefix, 10)).isEmpty();
+    }
+}
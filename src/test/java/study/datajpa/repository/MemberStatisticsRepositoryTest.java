@@ -0,0 +1,87 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//집계는 커밋된 변경만 반영하므로 테스트를 트랜잭션으로 묶지 않는다.
+//시작할 때의 비동기 reconcile이나 다른 테스트의 bulk 연산이 띄운 reconcile과 겹칠 수 있으므로
+//reconcile을 부른 뒤에는 그 요청 이후의 집계가 끝날 때까지 기다린다.
+@SpringBootTest
+class MemberStatisticsRepositoryTest {
+    //다른 테스트 데이터와 겹치지 않는 나이
+    private static final int AGE = 4242;
+
+    @Autowired
+    MemberStatisticsRepository statistics;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void entityChangesAreApplied() throws InterruptedException {
+        reconcileNow();
+        long before = statistics.countByAge(AGE);
+        Team team = teamRepository.save(new Team("statsTeam"));
+
+        Member member = memberRepository.save(new Member("stats1", AGE, team));
+        memberRepository.save(new Member("stats2", AGE + 2, team));
+
+        assertThat(statistics.countByAge(AGE)).isEqualTo(before + 1);
+        assertThat(statistics.teamStats(team.getId()).getMemberCount()).isEqualTo(2);
+        assertThat(statistics.teamStats(team.getId()).getAverageAge()).isEqualTo(AGE + 1.0);
+
+        //나이 변경: AGE -> AGE + 2
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                memberRepository.findById(member.getId()).get().setAge(AGE + 2));
+        assertThat(statistics.countByAge(AGE)).isEqualTo(before);
+        assertThat(statistics.teamStats(team.getId()).getAverageAge()).isEqualTo(AGE + 2.0);
+
+        memberRepository.deleteById(member.getId());
+        assertThat(statistics.teamStats(team.getId()).getMemberCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void bulkUpdateTriggersReconcile() throws InterruptedException {
+        reconcileNow();
+        memberRepository.save(new Member("statsBulk", AGE + 10_000));
+        long before = statistics.countByAge(AGE + 10_001);
+
+        LocalDateTime committed = LocalDateTime.now();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                memberRepository.bulkAgePlus(AGE + 10_000));
+
+        awaitReconciledSince(committed);
+        assertThat(statistics.countByAge(AGE + 10_001)).isEqualTo(before + 1);
+    }
+
+    private void reconcileNow() throws InterruptedException {
+        LocalDateTime requested = LocalDateTime.now();
+        statistics.reconcile();
+        awaitReconciledSince(requested);
+    }
+
+    private void awaitReconciledSince(LocalDateTime since) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!reconciledSince(since) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(reconciledSince(since)).isTrue();
+    }
+
+    private boolean reconciledSince(LocalDateTime since) {
+        LocalDateTime reconciledAt = statistics.getReconciledAt();
+        return reconciledAt != null && !reconciledAt.isBefore(since);
+    }
+}
@@ -0,0 +1,52 @@
+package study.datajpa.repository;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.metrics.StartupTimings;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//warm-up을 켠 context를 따로 띄우면 ddl-auto가 공유 DB 스키마를 다시 만들므로
+//기본 context의 빈으로 QueryWarmup을 직접 만들어서 호출한다.
+@SpringBootTest
+class QueryWarmupTest {
+    @Autowired
+    ListableBeanFactory beanFactory;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    @Qualifier("dbExecutor")
+    Executor dbExecutor;
+    @Autowired
+    StartupTimings startupTimings;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void warmUpCompilesRepositoryQueries() {
+        QueryWarmup queryWarmup = new QueryWarmup(beanFactory, entityManagerFactory, dataSource, dbExecutor, startupTimings);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getStatistics();
+
+        int compiled = queryWarmup.warmUp();
+        assertThat(compiled).isGreaterThan(0);
+        assertThat(startupTimings.stats().getBackgroundMillis()).containsKey("query-warmup");
+
+        //warm-up이 plan 캐시를 채웠으므로 @Query를 실행해도 plan 캐시에서 가져온다.
+        long misses = statistics.getQueryPlanCacheMissCount();
+        long hits = statistics.getQueryPlanCacheHitCount();
+        memberRepository.findUsernameList();
+        assertThat(statistics.getQueryPlanCacheMissCount()).isEqualTo(misses);
+        assertThat(statistics.getQueryPlanCacheHitCount()).isGreaterThan(hits);
+    }
+}
@@ -0,0 +1,112 @@
+package study.datajpa.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.metrics.QueryCountAssertions;
+import study.datajpa.metrics.QueryCounter;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//2차 캐시는 트랜잭션이 커밋되어야 채워지므로 테스트 전체를 트랜잭션으로 묶지 않는다.
+//설정을 바꾸면 컨텍스트가 하나 더 만들어지면서 공유 DB 스키마를 다시 만들므로 기본 설정(캐시 켜짐) 그대로 실행한다.
+@SpringBootTest
+class SecondLevelCacheTest {
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    QueryCounter queryCounter;
+
+    @Test
+    public void findByIdHitsCache() {
+        Member member = memberRepository.save(new Member("cacheMember", 10));
+        CacheRegionStatistics region = memberRegion();
+
+        memberRepository.findById(member.getId());
+        long hits = region.getHitCount();
+        memberRepository.findById(member.getId());
+
+        assertThat(region.getHitCount()).isGreaterThan(hits);
+    }
+
+    @Test
+    public void bulkUpdateEvictsCache() {
+        Member member = memberRepository.save(new Member("bulkCacheMember", 1000));
+        memberRepository.findById(member.getId()); //캐시에 올린다.
+
+        //@Modifying 쿼리는 트랜잭션 안에서 실행해야 한다.
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> memberRepository.bulkAgePlus(1000));
+
+        //캐시에 남아있던 1000이 아니라 DB의 1001을 읽어야 한다.
+        Member findMember = memberRepository.findById(member.getId()).get();
+        assertThat(findMember.getAge()).isEqualTo(1001);
+    }
+
+    @Test
+    public void queryCache() {
+        memberRepository.save(new Member("queryCacheMember", 10));
+
+        memberRepository.findUsernameList();
+        long hits = statistics().getQueryCacheHitCount();
+        List<String> usernames = memberRepository.findUsernameList();
+
+        assertThat(statistics().getQueryCacheHitCount()).isEqualTo(hits + 1);
+        assertThat(usernames).contains("queryCacheMember");
+    }
+
+    //쿼리 캐시에 맞으면 sql을 실행하지 않는다. 엔티티를 반환하는 쿼리는 엔티티도 2차 캐시에서 가져온다.
+    @Test
+    public void queryCacheHitRunsNoSql() {
+        Team team = teamRepository.save(new Team("queryCacheTeam"));
+        memberRepository.save(new Member("queryCacheSqlMember", 10, team));
+
+        memberRepository.findUsernameList();
+        memberRepository.findMemberDto();
+        memberRepository.findTop3ByOrderByAgeAsc();
+
+        QueryCountAssertions.assertStatements(queryCounter, 0, () -> {
+            assertThat(memberRepository.findUsernameList()).contains("queryCacheSqlMember");
+            assertThat(memberRepository.findMemberDto()).extracting(MemberDto::getUsername)
+                    .contains("queryCacheSqlMember");
+            assertThat(memberRepository.findTop3ByOrderByAgeAsc()).isNotEmpty();
+        });
+    }
+
+    @Test
+    public void queryCacheInvalidatedByWrite() {
+        memberRepository.findUsernameList();
+
+        //member 테이블에 쓰기가 일어나면 캐시된 결과는 더 이상 사용되지 않는다.
+        memberRepository.save(new Member("queryCacheNewMember", 10));
+        long hits = statistics().getQueryCacheHitCount();
+        List<String> usernames = memberRepository.findUsernameList();
+
+        assertThat(statistics().getQueryCacheHitCount()).isEqualTo(hits);
+        assertThat(usernames).contains("queryCacheNewMember");
+    }
+
+    private CacheRegionStatistics memberRegion() {
+        return statistics().getDomainDataRegionStatistics(Member.class.getName());
+    }
+
+    private Statistics statistics() {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+}
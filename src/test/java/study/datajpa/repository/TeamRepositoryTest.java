@@ -0,0 +1,147 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.TeamDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.metrics.QueryCountAssertions;
+import study.datajpa.metrics.QueryCounter;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@Rollback(false)
+class TeamRepositoryTest {
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    QueryCounter queryCounter;
+    @Autowired
+    EntityManager em;
+
+    @Test
+    public void loadWithMembers() {
+        List<Long> teamIds = saveTeams(5, 3);
+
+        //team 수와 상관없이 쿼리 한번
+        List<Team> teams = new ArrayList<>();
+        QueryCountAssertions.assertStatements(queryCounter, 1, () -> {
+            teams.addAll(teamRepository.loadWithMembers(teamIds));
+            teams.forEach(t -> t.getMembers().size());
+        });
+
+        assertThat(teams).extracting(Team::getId).containsExactlyElementsOf(teamIds);
+        assertThat(teams).allSatisfy(t -> assertThat(t.getMembers()).hasSize(3));
+    }
+
+    @Test
+    public void batchFetchMembers() {
+        List<Long> teamIds = saveTeams(5, 3);
+
+        //team 조회 1번 + members 컬렉션 5개를 in 쿼리 1번으로 초기화
+        QueryCountAssertions.assertStatements(queryCounter, 2, () -> {
+            for (Team team : teamRepository.findAllById(teamIds)) {
+                team.getMembers().size();
+            }
+        });
+    }
+
+    @Test
+    public void memberCountFollowsChangeTeamAndDelete() {
+        Team teamA = teamRepository.save(new Team("countA"));
+        Team teamB = teamRepository.save(new Team("countB"));
+        Member member1 = memberRepository.save(new Member("count1", 10, teamA));
+        memberRepository.save(new Member("count2", 10, teamA));
+
+        member1.changeTeam(teamB);
+        em.flush();
+        em.clear();
+
+        assertThat(teamRepository.findById(teamA.getId()).get().getMemberCount()).isEqualTo(1);
+        assertThat(teamRepository.findById(teamB.getId()).get().getMemberCount()).isEqualTo(1);
+
+        memberRepository.delete(memberRepository.findById(member1.getId()).get());
+        em.flush();
+        em.clear();
+
+        assertThat(teamRepository.findById(teamB.getId()).get().getMemberCount()).isZero();
+    }
+
+    //트랜잭션 밖에서 저장하면 team은 저장한 뒤 준영속이 된다. 그래도 memberCount가 빠지지 않아야 한다.
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void memberCountOnDetachedTeam() {
+        Team team = teamRepository.save(new Team("countDetached"));
+        memberRepository.save(new Member("countDetached1", 10, team));
+        memberRepository.save(new Member("countDetached2", 10, team));
+
+        assertThat(teamRepository.findById(team.getId()).get().getMemberCount()).isEqualTo(2);
+    }
+
+    //bulk delete 후에는 member가 빠진 team만 다시 맞추고, 들고 있던 엔티티는 영속 상태로 남는다.
+    @Test
+    public void bulkDeleteRefreshesOnlyAffectedTeams() {
+        Team teamA = teamRepository.save(new Team("countBulkDeleteA"));
+        Team teamB = teamRepository.save(new Team("countBulkDeleteB"));
+        Member memberA1 = memberRepository.save(new Member("countBulkDeleteA1", 10, teamA));
+        Member memberA2 = memberRepository.save(new Member("countBulkDeleteA2", 10, teamA));
+        memberRepository.save(new Member("countBulkDeleteB1", 10, teamB));
+        em.flush();
+        Long teamBVersion = teamB.getVersion();
+
+        memberRepository.deleteAllByIdInBatch(Arrays.asList(memberA1.getId(), memberA2.getId()));
+
+        assertThat(em.contains(teamA)).isTrue();
+        assertThat(em.contains(teamB)).isTrue();
+        assertThat(teamA.getMemberCount()).isZero();
+        assertThat(teamB.getMemberCount()).isEqualTo(1);
+        assertThat(teamB.getVersion()).isEqualTo(teamBVersion);
+    }
+
+    @Test
+    public void bulkInsertAndRefreshMemberCounts() {
+        Team team = teamRepository.save(new Team("countBulk"));
+        em.flush();
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            members.add(new Member("countBulk" + i, 10, team));
+        }
+        memberRepository.bulkInsert(members);
+
+        assertThat(teamRepository.findById(team.getId()).get().getMemberCount()).isEqualTo(5);
+
+        //team 목록은 member를 읽지 않고 memberCount를 돌려준다.
+        assertThat(teamRepository.findTeamDtoPage(PageRequest.of(0, 1000)).getContent())
+                .filteredOn(dto -> dto.getId().equals(team.getId()))
+                .extracting(TeamDto::getMemberCount)
+                .containsExactly(5);
+    }
+
+    private List<Long> saveTeams(int teamCount, int membersPerTeam) {
+        List<Long> teamIds = new ArrayList<>();
+        for (int i = 0; i < teamCount; i++) {
+            Team team = teamRepository.save(new Team("team" + i));
+            for (int j = 0; j < membersPerTeam; j++) {
+                memberRepository.save(new Member("member" + i + "-" + j, 10, team));
+            }
+            teamIds.add(team.getId());
+        }
+        em.flush();
+        em.clear();
+        return teamIds;
+    }
+}
@@ -0,0 +1,54 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//캐시는 커밋 후에 버려지므로 테스트를 트랜잭션으로 묶지 않는다.
+@SpringBootTest
+class TotalCountCacheTest {
+    //다른 테스트 데이터와 겹치지 않는 나이
+    private static final int AGE = 90_000;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TotalCountCache totalCountCache;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void springDataBulkUpdateInvalidatesAfterCommit() {
+        memberRepository.save(new Member("countCache1", AGE));
+        memberRepository.save(new Member("countCache2", AGE));
+        assertThat(memberJpaRepository.totalCountCached(AGE)).isEqualTo(2);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberRepository.bulkAgePlus(AGE);
+            //커밋 전에는 아직 캐시된 값이 남아 있다.
+            assertThat(totalCountCache.get("member:age=" + AGE, () -> -1)).isEqualTo(2);
+        });
+
+        assertThat(memberJpaRepository.totalCountCached(AGE)).isEqualTo(0);
+    }
+
+    @Test
+    public void jpaRepositoryBulkUpdateInvalidatesAfterCommit() {
+        memberRepository.save(new Member("countCache3", AGE + 10));
+        assertThat(memberJpaRepository.totalCountCached(AGE + 10)).isEqualTo(1);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberJpaRepository.bulkAgePlus(AGE + 10);
+            assertThat(totalCountCache.get("member:age=" + (AGE + 10), () -> -1)).isEqualTo(1);
+        });
+
+        assertThat(memberJpaRepository.totalCountCached(AGE + 10)).isEqualTo(0);
+    }
+}
@@ -0,0 +1,92 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UsernameIndexTest {
+
+    @Test
+    public void prefixSearchIsOrderedByUsernameAndLimited() {
+        UsernameIndex index = new UsernameIndex();
+        index.add(3L, "memberC");
+        index.add(1L, "memberA");
+        index.add(2L, "MemberB");
+        index.add(4L, "other");
+
+        assertThat(index.findByPrefix("member", 10)).containsExactly(1L, 2L, 3L);
+        assertThat(index.findByPrefix("MEMBER", 2)).containsExactly(1L, 2L);
+        assertThat(index.findByPrefix("nobody", 10)).isEmpty();
+    }
+
+    @Test
+    public void substringSearchUsesTrigramsAndVerifiesMatch() {
+        UsernameIndex index = new UsernameIndex();
+        index.add(1L, "alice");
+        index.add(2L, "malice");
+        index.add(3L, "bob");
+        index.add(4L, "licorice");
+        index.add(5L, "alixlic");
+
+        assertThat(index.findBySubstring("lic", 10)).containsExactly(1L, 5L, 4L, 2L);
+        //모든 조각이 있어도 붙어 있지 않으면 제외된다.
+        assertThat(index.findBySubstring("alic", 10)).containsExactly(1L, 2L);
+        assertThat(index.findBySubstring("xyz", 10)).isEmpty();
+        //3글자보다 짧으면 전체를 확인한다.
+        assertThat(index.findBySubstring("ob", 10)).containsExactly(3L);
+    }
+
+    @Test
+    public void removeAndRenameAreReflected() {
+        UsernameIndex index = new UsernameIndex();
+        index.add(1L, "alice");
+        index.add(2L, "alice");
+
+        index.remove(1L, "alice");
+        index.add(1L, "bob");
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.findByPrefix("ali", 10)).containsExactly(2L);
+        assertThat(index.findBySubstring("lic", 10)).containsExactly(2L);
+        assertThat(index.findByPrefix("bob", 10)).containsExactly(1L);
+
+        //없는 항목 삭제는 무시된다.
+        index.remove(9L, "alice");
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void concurrentAddsAreAllIndexed() throws Exception {
+        UsernameIndex index = new UsernameIndex();
+        int threads = 8;
+        int perThread = 1000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * perThread;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        long id = offset + i;
+                        index.add(id, "member" + id);
+                        index.findBySubstring("ber", 5);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(index.size()).isEqualTo(threads * perThread);
+        assertThat(index.findBySubstring("ber7999", 10)).containsExactly(7999L);
+    }
+}
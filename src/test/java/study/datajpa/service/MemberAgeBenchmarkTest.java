@@ -0,0 +1,52 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.OptimisticRetryTemplate;
+
+import java.time.Duration;
+
+//같은 member 하나에 몰리는 나이 증가: 낙관적 락 + 재시도와 비관적 락(select for update)의 초당 처리 수 비교
+//./gradlew benchmarkTest
+@Tag("benchmark")
+@SpringBootTest
+class MemberAgeBenchmarkTest {
+    private static final int UPDATES = MemberAgeServiceTest.THREADS * MemberAgeServiceTest.INCREMENTS_PER_THREAD;
+
+    @Autowired
+    MemberAgeService memberAgeService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void optimisticVsPessimistic() throws Exception {
+        OptimisticRetryTemplate retryTemplate = new OptimisticRetryTemplate(
+                transactionManager, 1000, Duration.ofMillis(1), Duration.ofMillis(20));
+        MemberAgeService service = new MemberAgeService(memberRepository, retryTemplate);
+
+        Long optimisticId = memberRepository.save(new Member("optimisticBench", 0)).getId();
+        long start = System.nanoTime();
+        MemberAgeServiceTest.contend(() -> service.increaseAge(optimisticId));
+        long optimisticNanos = System.nanoTime() - start;
+
+        Long pessimisticId = memberRepository.save(new Member("pessimisticBench", 0)).getId();
+        start = System.nanoTime();
+        MemberAgeServiceTest.contend(() -> memberAgeService.increaseAgeWithLock(pessimisticId));
+        long pessimisticNanos = System.nanoTime() - start;
+
+        System.out.printf("optimistic  : %,d updates/sec, conflict rate %.2f%n",
+                perSecond(optimisticNanos), retryTemplate.stats().getConflictRate());
+        System.out.printf("pessimistic : %,d updates/sec%n", perSecond(pessimisticNanos));
+    }
+
+    private static long perSecond(long nanos) {
+        return UPDATES * 1_000_000_000L / Math.max(1, nanos);
+    }
+}
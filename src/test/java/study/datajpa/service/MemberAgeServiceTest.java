@@ -0,0 +1,95 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.OptimisticRetryTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//여러 스레드가 같은 member의 나이를 동시에 올린다. 커밋된 데이터를 봐야 하므로 트랜잭션으로 묶지 않는다.
+@SpringBootTest
+class MemberAgeServiceTest {
+    static final int THREADS = 8;
+    static final int INCREMENTS_PER_THREAD = 25;
+
+    @Autowired
+    MemberAgeService memberAgeService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void optimisticAndPessimisticUnderContention() throws Exception {
+        //경합이 심하므로 테스트에서는 모두 성공할 만큼 재시도 횟수를 넉넉히 준다.
+        OptimisticRetryTemplate retryTemplate = new OptimisticRetryTemplate(
+                transactionManager, 1000, Duration.ofMillis(1), Duration.ofMillis(20));
+        MemberAgeService service = new MemberAgeService(memberRepository, retryTemplate);
+        //increaseAgeWithLock은 @Transactional이 필요하므로 스프링 빈(memberAgeService)으로 호출한다.
+
+        Long optimisticId = memberRepository.save(new Member("optimistic", 0)).getId();
+        contend(() -> service.increaseAge(optimisticId));
+
+        Long pessimisticId = memberRepository.save(new Member("pessimistic", 0)).getId();
+        contend(() -> memberAgeService.increaseAgeWithLock(pessimisticId));
+
+        int expected = THREADS * INCREMENTS_PER_THREAD;
+        //갱신 유실 없이 모든 증가가 반영되어야 한다.
+        assertThat(memberRepository.findById(optimisticId).get().getAge()).isEqualTo(expected);
+        assertThat(memberRepository.findById(pessimisticId).get().getAge()).isEqualTo(expected);
+        assertThat(retryTemplate.stats().getExecutions()).isEqualTo(expected);
+        assertThat(retryTemplate.stats().getExhausted()).isZero();
+        //재시도는 충돌이 있을 때만 일어난다.
+        assertThat(retryTemplate.stats().getAttempts())
+                .isEqualTo(expected + retryTemplate.stats().getConflicts());
+    }
+
+    @Test
+    public void retriesAreBounded() {
+        OptimisticRetryTemplate retryTemplate = new OptimisticRetryTemplate(
+                transactionManager, 3, Duration.ZERO, Duration.ZERO);
+
+        assertThatThrownBy(() -> retryTemplate.execute(() -> {
+            throw new javax.persistence.OptimisticLockException("conflict");
+        })).isInstanceOf(javax.persistence.OptimisticLockException.class);
+
+        assertThat(retryTemplate.stats().getAttempts()).isEqualTo(3);
+        assertThat(retryTemplate.stats().getExhausted()).isEqualTo(1);
+    }
+
+    static void contend(Runnable increment) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                        increment.run();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//chunk마다 REQUIRES_NEW로 커밋하므로 테스트 데이터도 커밋되어 있어야 한다. (테스트를 트랜잭션으로 묶지 않는다)
+@SpringBootTest
+class MemberBulkUpdateServiceTest {
+    //다른 테스트 데이터와 겹치지 않는 나이
+    private static final int AGE = 7000;
+
+    @Autowired
+    MemberBulkUpdateService memberBulkUpdateService;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void agePlusInChunks() {
+        List<Long> ids = saveMembers(25, AGE);
+
+        BulkAgePlusJob job = memberBulkUpdateService.agePlus(AGE, 10);
+
+        assertThat(job.getStatus()).isEqualTo(BulkAgePlusJob.Status.COMPLETED);
+        assertThat(job.getChunks()).isGreaterThanOrEqualTo(3);
+        assertThat(job.getUpdatedRows()).isGreaterThanOrEqualTo(25);
+        assertThat(memberRepository.findAllById(ids)).allSatisfy(m -> assertThat(m.getAge()).isEqualTo(AGE + 1));
+    }
+
+    @Test
+    public void startFromAfterId() throws InterruptedException {
+        List<Long> ids = saveMembers(5, AGE + 100);
+        long afterId = ids.get(1);
+
+        //afterId 이후의 member만 바뀐다.
+        BulkAgePlusJob job = memberBulkUpdateService.start(AGE + 100, 2, afterId);
+        awaitFinished(job);
+
+        assertThat(job.getStatus()).isEqualTo(BulkAgePlusJob.Status.COMPLETED);
+        assertThat(memberBulkUpdateService.find(job.getId())).containsSame(job);
+        assertThat(memberRepository.findById(ids.get(0)).get().getAge()).isEqualTo(AGE + 100);
+        assertThat(memberRepository.findById(ids.get(4)).get().getAge()).isEqualTo(AGE + 101);
+    }
+
+    private List<Long> saveMembers(int count, int age) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(memberRepository.save(new Member("bulkJob" + i, age)).getId());
+        }
+        return ids;
+    }
+
+    private void awaitFinished(BulkAgePlusJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (job.getStatus() == BulkAgePlusJob.Status.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
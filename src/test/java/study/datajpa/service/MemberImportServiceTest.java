@@ -0,0 +1,94 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.dto.ImportStageResult;
+import study.datajpa.dto.MemberImportResult;
+import study.datajpa.dto.RejectedRow;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//chunk마다 다른 스레드에서 커밋하므로 테스트를 트랜잭션으로 묶지 않는다.
+@SpringBootTest
+class MemberImportServiceTest {
+    @Autowired
+    MemberImportService memberImportService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Test
+    public void importCsvInChunks() throws Exception {
+        teamRepository.save(new Team("csvExisting"));
+        String csv = String.join("\n",
+                "username,age,team",
+                "csv1,10,csvExisting",
+                "csv2,20,csvNew",
+                "\"csv,3\",30,\"csvNew\"",
+                "csv4,abc,csvNew",
+                ",40,csvNew",
+                "csv6,60",
+                "",
+                "csv7,70,csvNew,extra",
+                "csv8,-1",
+                "csv9,90,csvExisting");
+
+        MemberImportResult result = memberImportService.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), 3);
+
+        assertThat(result.getRowsRead()).isEqualTo(10);
+        assertThat(result.getImported()).isEqualTo(5);
+        assertThat(result.getRejected()).isEqualTo(4);
+        assertThat(result.getFailedChunks()).isZero();
+        assertThat(result.getRejectedRows()).extracting(RejectedRow::getLine).containsExactly(5L, 6L, 9L, 10L);
+        //csvExisting은 있던 team을 쓰고 csvNew만 새로 만든다.
+        assertThat(result.getTeamsCreated()).isEqualTo(1);
+        assertThat(result.getStages()).extracting(ImportStageResult::getStage)
+                .containsExactly("read", "parse", "resolve-teams", "write");
+
+        assertThat(memberCount("csvExisting")).isEqualTo(2);
+        assertThat(memberCount("csvNew")).isEqualTo(2);
+        List<Member> members = memberRepository.findByNames(Arrays.asList("csv1", "csv,3", "csv6", "csv4"));
+        assertThat(members).extracting(Member::getUsername).containsExactlyInAnyOrder("csv1", "csv,3", "csv6");
+    }
+
+    //읽다가 실패해도 이미 저장된 chunk의 memberCount는 맞춰져 있어야 한다.
+    @Test
+    public void readFailureStillRefreshesMemberCounts() {
+        byte[] csv = "csvFail1,10,csvFail\ncsvFail2,20,csvFail\n".getBytes(StandardCharsets.UTF_8);
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+
+        assertThatThrownBy(() -> memberImportService.importCsv(
+                new SequenceInputStream(new ByteArrayInputStream(csv), failing), 2))
+                .isInstanceOf(IOException.class);
+
+        assertThat(memberCount("csvFail")).isEqualTo(2);
+    }
+
+    private int memberCount(String teamName) {
+        List<Team> teams = teamRepository.findByNameIn(Collections.singletonList(teamName));
+        assertThat(teams).hasSize(1);
+        return teams.get(0).getMemberCount();
+    }
+}